@@ -0,0 +1,70 @@
+package models;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a generated DAG file with {@link JobGraphLoader}.
+ * <p>
+ * The file declares {@code jobs} jobs, each after the first {@code parents} with that many parents drawn from the
+ * 1000 jobs before it, so the default is 1M jobs and about 5M edges. With the GC profiler (enabled in build.gradle),
+ * {@code gc.alloc.rate.norm} shows the allocation per load, which should stay close to the Jobs, their names and the
+ * graph's arrays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class JobGraphLoaderBenchmark {
+    @Param({"1000000"})
+    public int jobs;
+
+    @Param({"5"})
+    public int parents;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("dag", ".tsv");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < jobs; i++) {
+                writer.write("job-");
+                writer.write(Integer.toString(i));
+                if (i >= parents) {
+                    // Distinct parents from a window before the job, so the file stays in topological order
+                    int window = Math.min(i, 1000);
+                    int first = i - window + random.nextInt(window - parents + 1);
+                    for (int p = 0; p < parents; p++) {
+                        writer.write("\tjob-");
+                        writer.write(Integer.toString(first + p));
+                    }
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public JobGraph load() throws IOException {
+        return JobGraphLoader.load(file, name -> {
+            Job job = new Job(name, message -> { }, null);
+            job.setEventSink((event, eventJob, nanoTime) -> { });
+            return job;
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package scheduler;
+
+import models.Job;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scheduler's own overhead on zero-work jobs across DAG shapes.
+ * <p>
+ * Each invocation submits one run and waits for it, so the graph compile, dispatch and release of every job are all
+ * included. The {@code jobs} counter normalizes the results per job: in throughput mode it reports jobs per second,
+ * and in average-time mode the time each job adds to a run. Run with the GC profiler (enabled in build.gradle) and
+ * divide {@code gc.alloc.rate.norm} by the job count for the allocation per job. The {@code engine} parameter
+ * compares the fixed pool's single shared queue with the work-stealing pool's per-worker deques, and with the fixed
+ * pool dispatching in batches, where chains run inline and a fan-out costs one executor task per batch, not per job.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DagShapeBenchmark {
+    @Param({"fanOut", "chain", "diamond", "layered"})
+    public String shape;
+
+    @Param({"10000", "1000000"})
+    public int jobs;
+
+    @Param({"fixed", "workStealing", "batched"})
+    public String engine;
+
+    private ParallelJobScheduler scheduler;
+    private List<Job> startingJobs;
+
+    /**
+     * Reports the jobs completed per invocation as a secondary result
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class JobCounter {
+        public long jobs;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        scheduler = switch (engine) {
+            case "fixed" -> new ParallelJobScheduler(threads);
+            case "workStealing" -> ParallelJobScheduler.withWorkStealing(threads);
+            case "batched" -> new ParallelJobScheduler(threads);
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+        if (engine.equals("batched")) {
+            scheduler.setDispatchBatchSize(64);
+        }
+        startingJobs = DagShapes.build(shape, jobs);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    @Benchmark
+    public DagRun run(JobCounter counter) throws InterruptedException {
+        DagRun run = scheduler.submit(startingJobs);
+        run.await(10, TimeUnit.MINUTES);
+        counter.jobs += jobs;
+        return run;
+    }
+}
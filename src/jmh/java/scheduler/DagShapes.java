@@ -0,0 +1,116 @@
+package scheduler;
+
+import models.Job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates DAGs of zero-work jobs that discard their events, so run time is the scheduler's own overhead.
+ * <p>
+ * Every generator builds iteratively and returns the starting jobs of a graph with exactly the requested number of
+ * jobs.
+ */
+final class DagShapes {
+    private DagShapes() {
+    }
+
+    /**
+     * Build one of the named shapes
+     *
+     * @param shape "fanOut", "chain", "diamond" or "layered"
+     * @param jobs  the number of jobs in the graph
+     * @return the starting jobs
+     */
+    static List<Job> build(String shape, int jobs) {
+        return switch (shape) {
+            case "fanOut" -> fanOut(jobs);
+            case "chain" -> chain(jobs);
+            case "diamond" -> diamonds(jobs, 4);
+            case "layered" -> randomLayered(jobs, 64, 3, new Random(42));
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+    }
+
+    /**
+     * One root with every other job as its child
+     */
+    static List<Job> fanOut(int jobs) {
+        Job root = newJob("Root");
+        for (int i = 1; i < jobs; i++) {
+            newJob("Child" + i, root);
+        }
+        return Collections.singletonList(root);
+    }
+
+    /**
+     * A single chain, so every job waits for the previous one
+     */
+    static List<Job> chain(int jobs) {
+        Job root = newJob("Job0");
+        Job previous = root;
+        for (int i = 1; i < jobs; i++) {
+            previous = newJob("Job" + i, previous);
+        }
+        return Collections.singletonList(root);
+    }
+
+    /**
+     * Diamonds stacked end to end: each join fans out to width jobs that join again in the next job
+     */
+    static List<Job> diamonds(int jobs, int width) {
+        Job root = newJob("Join0");
+        Job join = root;
+        int count = 1;
+        while (count < jobs) {
+            int branches = Math.min(width, jobs - count);
+            Job[] middle = new Job[branches];
+            for (int i = 0; i < branches; i++) {
+                middle[i] = newJob("Branch" + count++, join);
+            }
+            if (count < jobs) {
+                join = newJob("Join" + count++, middle);
+            }
+        }
+        return Collections.singletonList(root);
+    }
+
+    /**
+     * Layers of up to width jobs; each job after the first layer depends on 1 to maxParents random jobs of the
+     * layer above
+     */
+    static List<Job> randomLayered(int jobs, int width, int maxParents, Random random) {
+        List<Job> roots = new ArrayList<>();
+        Job[] previousLayer = new Job[0];
+        int count = 0;
+        while (count < jobs) {
+            Job[] layer = new Job[Math.min(width, jobs - count)];
+            for (int i = 0; i < layer.length; i++) {
+                if (previousLayer.length == 0) {
+                    layer[i] = newJob("Job" + count++);
+                    roots.add(layer[i]);
+                } else {
+                    int parentCount = 1 + random.nextInt(Math.min(maxParents, previousLayer.length));
+                    Job[] parents = new Job[parentCount];
+                    int first = random.nextInt(previousLayer.length);
+                    for (int p = 0; p < parentCount; p++) {
+                        // Consecutive jobs of the layer above, so no parent is declared twice
+                        parents[p] = previousLayer[(first + p) % previousLayer.length];
+                    }
+                    layer[i] = newJob("Job" + count++, parents);
+                }
+            }
+            previousLayer = layer;
+        }
+        return roots;
+    }
+
+    private static Job newJob(String name, Job... parentJobs) {
+        Job job = new Job(name, parentJobs);
+        job.setEventSink((event, eventJob, nanoTime) -> { });
+        job.setSleepTimeMs(0);
+        return job;
+    }
+}
@@ -0,0 +1,60 @@
+package scheduler;
+
+import models.Job;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the fixed platform-thread pool with the virtual-thread mode on a wide fan-out of blocking jobs.
+ * <p>
+ * Every job sleeps, standing in for I/O, so the fixed pool finishes a level in width / poolSize sleeps while the
+ * virtual-thread modes are bounded by the level's width or their concurrency limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutorModeBenchmark {
+    @Param({"1000", "10000"})
+    public int width;
+
+    @Param({"10"})
+    public int sleepTimeMs;
+
+    @Param({"fixed-4", "fixed-64", "virtual", "virtual-256"})
+    public String mode;
+
+    private ParallelJobScheduler scheduler;
+    private Job root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = switch (mode) {
+            case "fixed-4" -> new ParallelJobScheduler(4);
+            case "fixed-64" -> new ParallelJobScheduler(64);
+            case "virtual" -> ParallelJobScheduler.withVirtualThreads();
+            case "virtual-256" -> ParallelJobScheduler.withVirtualThreads(256);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+
+        Random random = new Random(42);
+        root = new Job("Root", message -> { }, random);
+        root.setSleepTimeMs(0);
+        for (int i = 0; i < width; i++) {
+            Job child = new Job("Child" + i, message -> { }, random, root);
+            child.setSleepTimeMs(sleepTimeMs);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    @Benchmark
+    public void wideFanOut() throws InterruptedException {
+        scheduler.submit(Collections.singletonList(root)).await(10, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,63 @@
+package scheduler;
+
+import models.JobGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the release path under contention: diamonds whose joins wait for {@code width} parents each.
+ * <p>
+ * All parents of a join become ready together and finish on every worker at about the same time, so each
+ * completion races the others to count down the join's single pending-parent counter. The graph is compiled once,
+ * so only dispatch and release are measured. Contention only shows with several cores; on one core the results
+ * measure the uncontended cost of the same path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FanInBenchmark {
+    private static final int JOBS = 100_000;
+
+    @Param({"16", "256", "4096"})
+    public int width;
+
+    @Param({"fixed", "workStealing"})
+    public String engine;
+
+    private ParallelJobScheduler scheduler;
+    private JobGraph graph;
+
+    /**
+     * Reports the jobs completed per invocation as a secondary result
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class JobCounter {
+        public long jobs;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        scheduler = switch (engine) {
+            case "fixed" -> new ParallelJobScheduler(threads);
+            case "workStealing" -> ParallelJobScheduler.withWorkStealing(threads);
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+        graph = JobGraph.compile(DagShapes.diamonds(JOBS, width));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    @Benchmark
+    public DagRun run(JobCounter counter) throws InterruptedException {
+        DagRun run = scheduler.submit(graph);
+        run.await(10, TimeUnit.MINUTES);
+        counter.jobs += JOBS;
+        return run;
+    }
+}
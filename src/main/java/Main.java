@@ -25,11 +25,11 @@ public class Main {
         // Create a list of starting jobs (jobs with no parent dependencies)
         List<Job> startingJobs = Arrays.asList(jobA, jobB);
 
-        // Create an instance of ParallelJobScheduler
-        ParallelJobScheduler parallelJobScheduler = new ParallelJobScheduler();
-
-        // Schedule all jobs using the scheduler
-        parallelJobScheduler.scheduleAllJobs(startingJobs);
+        // Create an instance of ParallelJobScheduler; closing it shuts down its thread pool
+        try (ParallelJobScheduler parallelJobScheduler = new ParallelJobScheduler()) {
+            // Schedule all jobs using the scheduler and report how each one ended
+            System.out.println(parallelJobScheduler.scheduleAllJobs(startingJobs));
+        }
     }
 }
 
@@ -0,0 +1,161 @@
+package models;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link JobEventSink} that buffers events in a ring and hands them to another sink on a background thread.
+ * <p>
+ * Producers claim a slot with one compare-and-set on the next sequence number, store the event's parts in
+ * preallocated arrays and publish the slot with a volatile write, so recording an event neither allocates nor takes
+ * a lock. A single daemon thread drains published slots in order and passes them to the delegate, which is free to
+ * format and write them, for example through {@link JobEventSink#formatting}. When the ring is empty the thread
+ * parks until the next producer wakes it, so an idle log costs no CPU. When the ring is full, the event is dropped
+ * and counted instead of blocking the worker.
+ */
+public final class AsyncJobEventLog implements JobEventSink, AutoCloseable {
+    private final int mask;
+    private final JobEvent[] events;
+    private final Job[] jobs;
+    private final long[] nanoTimes;
+    // Sequence number last published in each slot; the drainer reads a slot once it holds the expected sequence
+    private final AtomicLongArray published;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final JobEventSink delegate;
+    private final Thread drainer;
+    private volatile long consumed;
+    private volatile boolean closed;
+    // Set by the drainer before it parks on an empty ring; producers that see it unpark the drainer
+    private volatile boolean drainerIdle;
+
+    /**
+     * Constructor for the AsyncJobEventLog class; starts the background thread
+     *
+     * @param capacity the number of events the ring holds, rounded up to a power of two
+     * @param delegate receives the events, only ever from the background thread
+     */
+    public AsyncJobEventLog(int capacity, JobEventSink delegate) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.events = new JobEvent[size];
+        this.jobs = new Job[size];
+        this.nanoTimes = new long[size];
+        this.published = new AtomicLongArray(size);
+        for (int slot = 0; slot < size; slot++) {
+            published.set(slot, -1);
+        }
+        this.delegate = delegate;
+        this.drainer = new Thread(this::drain, "job-event-log");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Getter method for the shared log that writes to standard output
+     * <p>
+     * Created on first use, it drains its remaining events when the JVM shuts down.
+     *
+     * @return the shared standard-output log
+     */
+    public static AsyncJobEventLog standardOut() {
+        return StandardOut.LOG;
+    }
+
+    @Override
+    public void onEvent(JobEvent event, Job job, long nanoTime) {
+        long sequence;
+        do {
+            sequence = nextSequence.get();
+            if (closed || sequence - consumed > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!nextSequence.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        events[slot] = event;
+        jobs[slot] = job;
+        nanoTimes[slot] = nanoTime;
+        // A volatile write, so it cannot pass the read of drainerIdle and leave the drainer parked on this event
+        published.set(slot, sequence);
+        if (drainerIdle) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    /**
+     * Getter method for the number of events dropped because the ring was full
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Wait until every event recorded before this call has been passed to the delegate
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        long target = nextSequence.get();
+        while (consumed < target && drainer.isAlive()) {
+            LockSupport.unpark(drainer);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Stop accepting events, pass on the ones already recorded and stop the background thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException ie) {
+            // Preserve interrupt status
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        long sequence = 0;
+        while (true) {
+            int slot = (int) sequence & mask;
+            if (published.get(slot) == sequence) {
+                JobEvent event = events[slot];
+                Job job = jobs[slot];
+                long nanoTime = nanoTimes[slot];
+                jobs[slot] = null; // Do not keep the Job reachable
+                consumed = sequence + 1; // Frees the slot for producers
+                delegate.onEvent(event, job, nanoTime);
+                sequence++;
+            } else if (closed && sequence == nextSequence.get()) {
+                return;
+            } else {
+                drainerIdle = true;
+                // Look again after announcing it, so a producer that published meanwhile is not missed
+                if (published.get(slot) != sequence && !closed) {
+                    LockSupport.park(this);
+                }
+                drainerIdle = false;
+            }
+        }
+    }
+
+    private static final class StandardOut {
+        private static final AsyncJobEventLog LOG = new AsyncJobEventLog(1 << 16,
+                JobEventSink.formatting(System.out::println));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(LOG::close, "job-event-log-shutdown"));
+        }
+    }
+}
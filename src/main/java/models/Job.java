@@ -3,36 +3,47 @@ package models;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.CountDownLatch;
 import java.util.function.Consumer;
 
 /**
  * A class that represents a Job which can be run in a Thread.
+ * <p>
+ * A Job is only the definition of a unit of work and its dependencies. It holds no state of any run, so the same
+ * Jobs can be run any number of times, also concurrently; each {@code DagRun} keeps its own dependency counters and
+ * statuses.
  */
 public class Job implements Runnable {
     private String name;
     private List<Job> childrenJobs;
     private List<Job> parentJobs;
-    private CountDownLatch latch;
     private final Random random;
-    private Consumer<String> logger;
+    private JobEventSink eventSink;
     private int sleepTimeMs;
+    private long estimatedCostMs;
+    private long timeoutMs;
+    private RetryPolicy retryPolicy;
+    private String inputFingerprint;
+    private ResourceDemand resourceDemand;
+    private String concurrencyGroup;
 
     /**
-     * Constructor for the Job class, which initializes the name, children Jobs, parent Jobs, and CountDownLatch
+     * Constructor for the Job class, which initializes the name, children Jobs and parent Jobs
+     * <p>
+     * Events are logged to standard output through {@link AsyncJobEventLog#standardOut()}.
      *
      * @param name       the name of the Job
      * @param parentJobs the parent Jobs of the current Job
      */
     public Job(String name, Job... parentJobs) {
-        this(name, System.out::println, new Random(), parentJobs);
+        this(name, null, new Random(), parentJobs);
     }
     
     /**
      * Constructor for testing with dependency injection
      *
      * @param name       the name of the Job
-     * @param logger     logger function for output
+     * @param logger     logger function for output, called on the running thread with lines such as "A started";
+     *                   null to log asynchronously to standard output
      * @param random     random number generator
      * @param parentJobs the parent Jobs of the current Job
      */
@@ -40,10 +51,11 @@ public class Job implements Runnable {
         this.name = name;
         this.childrenJobs = new ArrayList<>();
         this.parentJobs = new ArrayList<>();
-        this.latch = new CountDownLatch(parentJobs.length);
-        this.logger = logger;
+        this.eventSink = logger != null ? JobEventSink.formatting(logger) : AsyncJobEventLog.standardOut();
         this.random = random;
         this.sleepTimeMs = -1; // -1 means use random
+        this.estimatedCostMs = -1; // -1 means not declared
+        this.timeoutMs = -1; // -1 means use the scheduler's default
 
         // Add child jobs with thread safety
         for (Job parentJob : parentJobs) {
@@ -83,15 +95,6 @@ public class Job implements Runnable {
         return parentJobs;
     }
 
-    /**
-     * Getter method for the CountDownLatch of the current Job
-     *
-     * @return the CountDownLatch of the current Job
-     */
-    public CountDownLatch getLatch() {
-        return latch;
-    }
-
     /**
      * Set a fixed sleep time for testing
      *
@@ -101,14 +104,145 @@ public class Job implements Runnable {
         this.sleepTimeMs = sleepTimeMs;
     }
     
+    /**
+     * Getter method for the resources the Job holds while it runs
+     *
+     * @return the resource demand, or null if the Job is limited only by the worker threads
+     */
+    public ResourceDemand getResourceDemand() {
+        return resourceDemand;
+    }
+
+    /**
+     * Declare the resources the Job holds while it runs; on a scheduler with a resource pool, the Job starts only
+     * once they are all free
+     *
+     * @param resourceDemand the resource demand, or null to be limited only by the worker threads
+     */
+    public void setResourceDemand(ResourceDemand resourceDemand) {
+        this.resourceDemand = resourceDemand;
+    }
+
+    /**
+     * Getter method for the concurrency group of the Job
+     *
+     * @return the name of the group, or null if the Job is in none
+     */
+    public String getConcurrencyGroup() {
+        return concurrencyGroup;
+    }
+
+    /**
+     * Put the Job in a concurrency group registered with the scheduler, which limits how many of its jobs run at
+     * once and how fast they start
+     *
+     * @param concurrencyGroup the name of the group, or null for none
+     */
+    public void setConcurrencyGroup(String concurrencyGroup) {
+        this.concurrencyGroup = concurrencyGroup;
+    }
+
+    /**
+     * Getter method for the input fingerprint of the Job
+     *
+     * @return the fingerprint of everything the Job reads besides its parents' results, or null if unknown
+     */
+    public String getInputFingerprint() {
+        return inputFingerprint;
+    }
+
+    /**
+     * Declare a fingerprint of the Job's inputs, such as a hash of the files it reads
+     * <p>
+     * On a scheduler with a result cache, a Job whose fingerprint matches a cached successful run, and none of
+     * whose ancestors had to run, is not run again.
+     *
+     * @param inputFingerprint the fingerprint, or null to run the Job every time
+     */
+    public void setInputFingerprint(String inputFingerprint) {
+        this.inputFingerprint = inputFingerprint;
+    }
+
+    /**
+     * Set where the Job reports its events, replacing the logger
+     *
+     * @param eventSink the sink, called on the thread running the Job
+     */
+    public void setEventSink(JobEventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    /**
+     * Report an event of the Job to its sink, timestamped now
+     *
+     * @param event the kind of event
+     */
+    protected void emit(JobEvent event) {
+        eventSink.onEvent(event, this, System.nanoTime());
+    }
+
+    /**
+     * Getter method for the declared cost estimate of the Job
+     *
+     * @return the estimated run time in milliseconds, or -1 if not declared
+     */
+    public long getEstimatedCostMs() {
+        return estimatedCostMs;
+    }
+
+    /**
+     * Declare how long the Job is expected to run, used to prioritize jobs on the critical path
+     *
+     * @param estimatedCostMs the estimated run time in milliseconds, or -1 to fall back to observed run times
+     */
+    public void setEstimatedCostMs(long estimatedCostMs) {
+        this.estimatedCostMs = estimatedCostMs;
+    }
+
+    /**
+     * Getter method for the timeout of the Job
+     *
+     * @return the timeout in milliseconds, 0 for none, or -1 to use the scheduler's default
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Set how long the Job may run before it is interrupted and its descendants are skipped
+     *
+     * @param timeoutMs the timeout in milliseconds, 0 for none, or -1 to use the scheduler's default
+     */
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Getter method for the retry policy of the Job
+     *
+     * @return the retry policy, or null if a failure is final
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Set how a failed run of the Job is retried; its children are released only after a successful attempt
+     *
+     * @param retryPolicy the retry policy, or null to make the first failure final
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
     /**
      * Implementation of the run method from the Runnable interface.
      * <p>
-     * Prints the start of the Job and simulates some work before printing the completion of the Job.
+     * Reports the start of the Job and simulates some work before reporting the completion of the Job.
      */
     @Override
     public void run() {
-        logger.accept(this.getName() + " started");
+        emit(JobEvent.STARTED);
 
         // Simulate some work
         int actualSleepTime;
@@ -123,10 +257,10 @@ public class Job implements Runnable {
         } catch (InterruptedException e) {
             // Restore the interrupted status
             Thread.currentThread().interrupt();
-            logger.accept(this.getName() + " was interrupted");
+            emit(JobEvent.INTERRUPTED);
             return; // Exit early if interrupted
         }
 
-        logger.accept(this.getName() + " completed");
+        emit(JobEvent.COMPLETED);
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package models;
+
+/**
+ * The kinds of event a Job reports to its {@link JobEventSink}.
+ */
+public enum JobEvent {
+    /**
+     * The Job started running
+     */
+    STARTED("started"),
+    /**
+     * The Job ran to completion
+     */
+    COMPLETED("completed"),
+    /**
+     * The Job stopped early because its thread was interrupted
+     */
+    INTERRUPTED("was interrupted");
+
+    private final String description;
+
+    JobEvent(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Getter method for the text that follows the job name in a log line, e.g. "completed"
+     *
+     * @return the description of the event
+     */
+    public String getDescription() {
+        return description;
+    }
+}
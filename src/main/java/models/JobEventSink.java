@@ -0,0 +1,32 @@
+package models;
+
+import java.util.function.Consumer;
+
+/**
+ * Receives the events of running Jobs.
+ * <p>
+ * An event is passed as its parts, the kind of event, the Job and a {@link System#nanoTime()} timestamp, so
+ * reporting one allocates nothing and formats nothing. Sinks are called on the thread running the Job and must not
+ * block it; {@link AsyncJobEventLog} hands events to a background thread.
+ */
+@FunctionalInterface
+public interface JobEventSink {
+    /**
+     * Receive one event
+     *
+     * @param event    the kind of event
+     * @param job      the Job the event belongs to
+     * @param nanoTime when the event happened, from {@link System#nanoTime()}
+     */
+    void onEvent(JobEvent event, Job job, long nanoTime);
+
+    /**
+     * Create a sink that formats every event as a line such as "Job A started" on the calling thread
+     *
+     * @param logger receives the formatted lines
+     * @return the formatting sink
+     */
+    static JobEventSink formatting(Consumer<String> logger) {
+        return (event, job, nanoTime) -> logger.accept(job.getName() + " " + event.getDescription());
+    }
+}
@@ -0,0 +1,446 @@
+package models;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An immutable, validated snapshot of a Job dependency graph.
+ * <p>
+ * Jobs are numbered with dense int IDs in topological order, so every job without parents comes first and every
+ * parent has a smaller ID than its children. Edges are stored in CSR form: the children of job {@code id} are
+ * {@code getChild(e)} for {@code e} in {@code [getChildStart(id), getChildEnd(id))}, and parents are stored the
+ * same way. Walking edges therefore needs no allocation and no synchronization, and each edge costs 4 bytes per
+ * direction.
+ * <p>
+ * A graph loaded by {@link JobGraphSnapshot} reads its edges through {@link IntBuffer}s straight from a
+ * memory-mapped file instead of from int arrays. Such a graph creates each Job from its name on first use and finds
+ * jobs by name in the snapshot's hash table, so loading it does no work per job.
+ */
+public final class JobGraph {
+    private final int size;
+    private final AtomicReferenceArray<Job> jobs;
+    // Exactly one of ids and names is set: compiled graphs map Job identities, snapshots look names up
+    private final Map<Job, Integer> ids;
+    private final JobGraphSnapshot.Names names;
+    // Compiled graphs walk their edges in plain arrays; snapshot graphs in the mapped buffers, and the arrays are null
+    private final int[] childOffsets;
+    private final int[] childTargets;
+    private final int[] parentOffsets;
+    private final int[] parentTargets;
+    private final IntBuffer mappedChildOffsets;
+    private final IntBuffer mappedChildTargets;
+    private final IntBuffer mappedParentOffsets;
+    private final IntBuffer mappedParentTargets;
+    private final int rootCount;
+
+    private JobGraph(Job[] jobs, Map<Job, Integer> ids, int[] childOffsets, int[] childTargets,
+                     int[] parentOffsets, int[] parentTargets, int rootCount) {
+        this.size = jobs.length;
+        this.jobs = new AtomicReferenceArray<>(jobs);
+        this.ids = ids;
+        this.names = null;
+        this.childOffsets = childOffsets;
+        this.childTargets = childTargets;
+        this.parentOffsets = parentOffsets;
+        this.parentTargets = parentTargets;
+        this.mappedChildOffsets = null;
+        this.mappedChildTargets = null;
+        this.mappedParentOffsets = null;
+        this.mappedParentTargets = null;
+        this.rootCount = rootCount;
+    }
+
+    /**
+     * Constructor for a graph whose jobs are created on first use, for {@link JobGraphSnapshot}
+     *
+     * @param names the names of the jobs and the factory creating them
+     */
+    JobGraph(JobGraphSnapshot.Names names, IntBuffer childOffsets, IntBuffer childTargets, IntBuffer parentOffsets,
+             IntBuffer parentTargets, int rootCount) {
+        this.size = names.size();
+        this.jobs = new AtomicReferenceArray<>(names.size());
+        this.ids = null;
+        this.names = names;
+        this.childOffsets = null;
+        this.childTargets = null;
+        this.parentOffsets = null;
+        this.parentTargets = null;
+        this.mappedChildOffsets = childOffsets;
+        this.mappedChildTargets = childTargets;
+        this.mappedParentOffsets = parentOffsets;
+        this.mappedParentTargets = parentTargets;
+        this.rootCount = rootCount;
+    }
+
+    /**
+     * Compile every job reachable from the starting jobs into a graph.
+     * <p>
+     * Jobs are discovered through their children, and edges are taken from their declared parents. Validation and
+     * ordering are a single iterative O(V+E) pass of Kahn's algorithm over int arrays, with no recursion, so chains
+     * of any length compile.
+     *
+     * @param startingJobs starting jobs of the graph
+     * @return the compiled graph
+     * @throws IllegalArgumentException if the dependencies contain a cycle or reference an unreachable job
+     */
+    public static JobGraph compile(Collection<Job> startingJobs) {
+        // Assign dense discovery IDs
+        Map<Job, Integer> discoveryIds = new IdentityHashMap<>();
+        List<Job> discovered = new ArrayList<>();
+        for (Job job : startingJobs) {
+            if (!discoveryIds.containsKey(job)) {
+                discoveryIds.put(job, discovered.size());
+                discovered.add(job);
+            }
+        }
+        for (int i = 0; i < discovered.size(); i++) {
+            for (Job childJob : discovered.get(i).getChildrenJobs()) {
+                if (!discoveryIds.containsKey(childJob)) {
+                    discoveryIds.put(childJob, discovered.size());
+                    discovered.add(childJob);
+                }
+            }
+        }
+
+        // Build parent -> child edges from the declared parents, in CSR form
+        int jobCount = discovered.size();
+        int[] inDegree = new int[jobCount];
+        int[] offsets = new int[jobCount + 1];
+        for (int i = 0; i < jobCount; i++) {
+            Job job = discovered.get(i);
+            for (Job parentJob : job.getParentJobs()) {
+                Integer parentId = discoveryIds.get(parentJob);
+                if (parentId == null) {
+                    throw new IllegalArgumentException(job.getName() + " depends on " + parentJob.getName()
+                            + ", which is not reachable from the starting jobs");
+                }
+                offsets[parentId + 1]++;
+                inDegree[i]++;
+            }
+        }
+        for (int i = 0; i < jobCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[offsets[jobCount]];
+        int[] fill = Arrays.copyOf(offsets, jobCount);
+        for (int i = 0; i < jobCount; i++) {
+            for (Job parentJob : discovered.get(i).getParentJobs()) {
+                targets[fill[discoveryIds.get(parentJob)]++] = i;
+            }
+        }
+
+        // Kahn's algorithm; the order array doubles as the FIFO queue
+        int[] remainingParents = inDegree.clone();
+        int[] order = new int[jobCount];
+        int tail = 0;
+        for (int i = 0; i < jobCount; i++) {
+            if (remainingParents[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        int rootCount = tail;
+        for (int head = 0; head < tail; head++) {
+            int id = order[head];
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                if (--remainingParents[targets[e]] == 0) {
+                    order[tail++] = targets[e];
+                }
+            }
+        }
+        if (tail < jobCount) {
+            throw new IllegalArgumentException("Cycle detected in job dependencies: "
+                    + describeCycle(discovered, discoveryIds, remainingParents));
+        }
+
+        // Renumber in topological order so IDs, offsets and targets all follow the execution order
+        int[] rank = new int[jobCount];
+        for (int position = 0; position < jobCount; position++) {
+            rank[order[position]] = position;
+        }
+        Job[] jobs = new Job[jobCount];
+        Map<Job, Integer> ids = new IdentityHashMap<>(jobCount);
+        int[] childOffsets = new int[jobCount + 1];
+        int[] childTargets = new int[targets.length];
+        int[] parentOffsets = new int[jobCount + 1];
+        for (int position = 0; position < jobCount; position++) {
+            int oldId = order[position];
+            jobs[position] = discovered.get(oldId);
+            ids.put(jobs[position], position);
+            parentOffsets[position + 1] = parentOffsets[position] + inDegree[oldId];
+            int edgeCount = offsets[oldId + 1] - offsets[oldId];
+            childOffsets[position + 1] = childOffsets[position] + edgeCount;
+            for (int e = 0; e < edgeCount; e++) {
+                childTargets[childOffsets[position] + e] = rank[targets[offsets[oldId] + e]];
+            }
+        }
+        int[] parentTargets = new int[targets.length];
+        fill = Arrays.copyOf(parentOffsets, jobCount);
+        for (int id = 0; id < jobCount; id++) {
+            for (int e = childOffsets[id]; e < childOffsets[id + 1]; e++) {
+                parentTargets[fill[childTargets[e]]++] = id;
+            }
+        }
+        return new JobGraph(jobs, ids, childOffsets, childTargets, parentOffsets, parentTargets, rootCount);
+    }
+
+    /**
+     * Build a graph from jobs that are already in topological order, with their parent edges in CSR form
+     * <p>
+     * Used by {@link JobGraphLoader}, whose jobs carry no parent links of their own. Jobs without parents are moved
+     * to the front, keeping their relative order, which keeps every parent ahead of its children. Two passes over
+     * the int arrays build the renumbered parent and child edges; no per-job objects are allocated.
+     *
+     * @param jobs          the jobs, each after all of its parents; may be longer than jobCount
+     * @param jobCount      the number of jobs
+     * @param parentOffsets the parents of job {@code i} are {@code parentTargets[parentOffsets[i]]} up to
+     *                      {@code parentOffsets[i + 1]}
+     * @param parentTargets the parent indexes, each smaller than the index of its child
+     * @return the compiled graph
+     */
+    static JobGraph fromTopologicalOrder(Job[] jobs, int jobCount, int[] parentOffsets, int[] parentTargets) {
+        int edgeCount = parentOffsets[jobCount];
+        int rootCount = 0;
+        for (int i = 0; i < jobCount; i++) {
+            if (parentOffsets[i + 1] == parentOffsets[i]) {
+                rootCount++;
+            }
+        }
+        int[] rank = new int[jobCount];
+        int nextRoot = 0;
+        int nextChild = rootCount;
+        for (int i = 0; i < jobCount; i++) {
+            rank[i] = parentOffsets[i + 1] == parentOffsets[i] ? nextRoot++ : nextChild++;
+        }
+
+        Job[] orderedJobs = new Job[jobCount];
+        Map<Job, Integer> ids = new IdentityHashMap<>(jobCount);
+        int[] newParentOffsets = new int[jobCount + 1];
+        int[] childOffsets = new int[jobCount + 1];
+        for (int i = 0; i < jobCount; i++) {
+            orderedJobs[rank[i]] = jobs[i];
+            newParentOffsets[rank[i] + 1] = parentOffsets[i + 1] - parentOffsets[i];
+            for (int e = parentOffsets[i]; e < parentOffsets[i + 1]; e++) {
+                childOffsets[rank[parentTargets[e]] + 1]++;
+            }
+        }
+        for (int id = 0; id < jobCount; id++) {
+            ids.put(orderedJobs[id], id);
+            newParentOffsets[id + 1] += newParentOffsets[id];
+            childOffsets[id + 1] += childOffsets[id];
+        }
+        int[] newParentTargets = new int[edgeCount];
+        int[] childTargets = new int[edgeCount];
+        int[] fill = Arrays.copyOf(childOffsets, jobCount);
+        for (int i = 0; i < jobCount; i++) {
+            int id = rank[i];
+            int target = newParentOffsets[id];
+            for (int e = parentOffsets[i]; e < parentOffsets[i + 1]; e++) {
+                int parentId = rank[parentTargets[e]];
+                newParentTargets[target++] = parentId;
+                childTargets[fill[parentId]++] = id;
+            }
+        }
+        return new JobGraph(orderedJobs, ids, childOffsets, childTargets, newParentOffsets, newParentTargets,
+                rootCount);
+    }
+
+    /**
+     * Find one cycle among the jobs Kahn's algorithm could not order.
+     * <p>
+     * Every such job still has an unordered parent, so walking parents from any of them must revisit a job.
+     *
+     * @param jobs             jobs indexed by discovery ID
+     * @param ids              discovery ID of every job
+     * @param remainingParents parents left unordered per job, non-zero for jobs on or behind a cycle
+     * @return the cycle as "A -> B -> ... -> A" in dependency direction
+     */
+    private static String describeCycle(List<Job> jobs, Map<Job, Integer> ids, int[] remainingParents) {
+        int id = 0;
+        while (remainingParents[id] == 0) {
+            id++;
+        }
+        int[] visitedAt = new int[jobs.size()];
+        int[] path = new int[jobs.size() + 1];
+        int length = 0;
+        while (visitedAt[id] == 0) {
+            path[length++] = id;
+            visitedAt[id] = length;
+            for (Job parentJob : jobs.get(id).getParentJobs()) {
+                int parentId = ids.get(parentJob);
+                if (remainingParents[parentId] != 0) {
+                    id = parentId;
+                    break;
+                }
+            }
+        }
+
+        // path[visitedAt[id] - 1 .. length - 1] is the cycle, walked from child to parent
+        StringBuilder cycle = new StringBuilder(jobs.get(id).getName());
+        for (int i = length - 1; i >= visitedAt[id] - 1; i--) {
+            cycle.append(" -> ").append(jobs.get(path[i]).getName());
+        }
+        return cycle.toString();
+    }
+
+    /**
+     * Compute the remaining critical-path length of every job: its own cost plus the longest cost-weighted path
+     * through its descendants
+     * <p>
+     * IDs are in topological order, so a single backwards sweep sees every child before its parents.
+     *
+     * @param costs cost of each job, indexed by ID
+     * @return the remaining critical-path length of each job, indexed by ID
+     */
+    public long[] computeCriticalPathLengths(long[] costs) {
+        long[] lengths = new long[size];
+        for (int id = size - 1; id >= 0; id--) {
+            long longestChild = 0;
+            for (int e = getChildStart(id); e < getChildEnd(id); e++) {
+                longestChild = Math.max(longestChild, lengths[getChild(e)]);
+            }
+            lengths[id] = costs[id] + longestChild;
+        }
+        return lengths;
+    }
+
+    /**
+     * Getter method for the number of jobs in the graph
+     *
+     * @return the number of jobs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter method for the number of jobs without parents; their IDs are {@code 0} to {@code getRootCount() - 1}
+     *
+     * @return the number of jobs without parents
+     */
+    public int getRootCount() {
+        return rootCount;
+    }
+
+    /**
+     * Getter method for whether Jobs are created on first use, as in a graph loaded from a snapshot
+     * <p>
+     * Callers that can defer work per job until it runs should do so for such graphs, since looking at every Job up
+     * front creates them all.
+     *
+     * @return true if {@link #getJob(int)} may create the Job
+     */
+    public boolean createsJobsLazily() {
+        return names != null;
+    }
+
+    /**
+     * Getter method for the Job with the given ID
+     *
+     * @param id the ID of the Job
+     * @return the Job
+     */
+    public Job getJob(int id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            // Only snapshot graphs start out empty; the first caller to install a Job wins
+            Job created = names.createJob(id);
+            job = jobs.compareAndExchange(id, null, created);
+            if (job == null) {
+                job = created;
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Getter method for the ID of a Job
+     *
+     * @param job the Job
+     * @return the ID of the Job, or -1 if the Job is not part of this graph
+     */
+    public int getId(Job job) {
+        if (ids != null) {
+            Integer id = ids.get(job);
+            return id == null ? -1 : id;
+        }
+        int id = names.find(job.getName());
+        // A Job of the same name that this graph did not create is not part of it
+        return id >= 0 && jobs.get(id) == job ? id : -1;
+    }
+
+    /**
+     * Getter method for the number of parents of a Job
+     *
+     * @param id the ID of the Job
+     * @return the number of parent edges of the Job
+     */
+    public int getParentCount(int id) {
+        return getParentEnd(id) - getParentStart(id);
+    }
+
+    /**
+     * Getter method for the first edge index of a Job's parents
+     *
+     * @param id the ID of the Job
+     * @return the index of the first parent edge
+     */
+    public int getParentStart(int id) {
+        return parentOffsets != null ? parentOffsets[id] : mappedParentOffsets.get(id);
+    }
+
+    /**
+     * Getter method for the end (exclusive) edge index of a Job's parents
+     *
+     * @param id the ID of the Job
+     * @return the index after the last parent edge
+     */
+    public int getParentEnd(int id) {
+        return parentOffsets != null ? parentOffsets[id + 1] : mappedParentOffsets.get(id + 1);
+    }
+
+    /**
+     * Getter method for the parent at an edge index
+     *
+     * @param edge the edge index
+     * @return the ID of the parent Job
+     */
+    public int getParent(int edge) {
+        return parentTargets != null ? parentTargets[edge] : mappedParentTargets.get(edge);
+    }
+
+    /**
+     * Getter method for the first edge index of a Job's children
+     *
+     * @param id the ID of the Job
+     * @return the index of the first child edge
+     */
+    public int getChildStart(int id) {
+        return childOffsets != null ? childOffsets[id] : mappedChildOffsets.get(id);
+    }
+
+    /**
+     * Getter method for the end (exclusive) edge index of a Job's children
+     *
+     * @param id the ID of the Job
+     * @return the index after the last child edge
+     */
+    public int getChildEnd(int id) {
+        return childOffsets != null ? childOffsets[id + 1] : mappedChildOffsets.get(id + 1);
+    }
+
+    /**
+     * Getter method for the child at an edge index
+     *
+     * @param edge the edge index
+     * @return the ID of the child Job
+     */
+    public int getChild(int edge) {
+        return childTargets != null ? childTargets[edge] : mappedChildTargets.get(edge);
+    }
+}
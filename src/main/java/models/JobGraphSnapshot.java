@@ -0,0 +1,306 @@
+package models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Writes a compiled {@link JobGraph} to a binary snapshot file and maps it back in constant time.
+ * <p>
+ * The snapshot holds everything compiling produced: the CSR arrays of child and parent edges in topological ID
+ * order, the job names, and an open-addressing hash table from name to ID. {@link #load} maps the file with
+ * {@link FileChannel#map} and hands int views of it to the graph, so loading reads only the header; edges and names
+ * are paged in as a run touches them, and every process mapping the same file shares the same page-cached copy.
+ * The graph is not validated again on load: a snapshot is only ever written from a graph that was validated when it
+ * was compiled, and is replaced atomically. Jobs are created from their names on first use.
+ * <p>
+ * Layout, little-endian: a header of eight ints (magic, version, job count, root count, edge count, hash slot count,
+ * name byte count, reserved), then the int arrays child offsets, child targets, parent offsets, parent targets,
+ * name offsets and hash slots, then the UTF-8 names back to back. A snapshot must be smaller than 2 GB.
+ */
+public final class JobGraphSnapshot {
+    private static final int MAGIC = 0x4A475348; // "JGSH"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private JobGraphSnapshot() {
+    }
+
+    /**
+     * Write a graph to a snapshot file, replacing the file atomically so processes mapping it never see it half
+     * written
+     *
+     * @param graph the graph
+     * @param path  the snapshot file
+     * @throws IOException              if the file cannot be written, or the snapshot would be 2 GB or larger
+     * @throws IllegalArgumentException if two jobs of the graph have the same name
+     */
+    public static void write(JobGraph graph, Path path) throws IOException {
+        int jobCount = graph.size();
+        int edgeCount = jobCount == 0 ? 0 : graph.getChildEnd(jobCount - 1);
+        byte[][] names = new byte[jobCount][];
+        Set<String> distinctNames = new HashSet<>();
+        long nameByteCount = 0;
+        for (int id = 0; id < jobCount; id++) {
+            String name = graph.getJob(id).getName();
+            if (!distinctNames.add(name)) {
+                // A snapshot finds its jobs by name, so a second job of the same name could not be found
+                throw new IllegalArgumentException("Job name " + name + " is used by more than one job");
+            }
+            names[id] = name.getBytes(StandardCharsets.UTF_8);
+            nameByteCount += names[id].length;
+        }
+        int[] slots = buildSlots(names);
+        long size = Integer.BYTES * (HEADER_INTS + 3L * (jobCount + 1) + 2L * edgeCount + slots.length)
+                + nameByteCount;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + jobCount + " jobs would be " + size + " bytes, over 2 GB");
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            IntWriter out = new IntWriter(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(jobCount);
+            out.putInt(graph.getRootCount());
+            out.putInt(edgeCount);
+            out.putInt(slots.length);
+            out.putInt((int) nameByteCount);
+            out.putInt(0);
+            for (int id = 0; id <= jobCount; id++) {
+                out.putInt(id < jobCount ? graph.getChildStart(id) : edgeCount);
+            }
+            for (int edge = 0; edge < edgeCount; edge++) {
+                out.putInt(graph.getChild(edge));
+            }
+            for (int id = 0; id <= jobCount; id++) {
+                out.putInt(id < jobCount ? graph.getParentStart(id) : edgeCount);
+            }
+            for (int edge = 0; edge < edgeCount; edge++) {
+                out.putInt(graph.getParent(edge));
+            }
+            int nameOffset = 0;
+            out.putInt(nameOffset);
+            for (byte[] name : names) {
+                nameOffset += name.length;
+                out.putInt(nameOffset);
+            }
+            for (int slot : slots) {
+                out.putInt(slot);
+            }
+            for (byte[] name : names) {
+                out.putBytes(name);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Map a snapshot file into a graph, without reading its edges or names
+     *
+     * @param path       the snapshot file
+     * @param jobFactory creates the Job of a name the first time the graph needs it, for example
+     *                   {@code name -> new Job(name)}
+     * @return the graph, backed by the mapped file
+     * @throws IOException if the file cannot be mapped or is not a snapshot of this version
+     */
+    public static JobGraph load(Path path, Function<String, Job> jobFactory) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a job graph snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(path + " has snapshot version " + buffer.getInt(4) + ", expected " + VERSION);
+        }
+        int jobCount = buffer.getInt(8);
+        int rootCount = buffer.getInt(12);
+        int edgeCount = buffer.getInt(16);
+        int slotCount = buffer.getInt(20);
+        int nameByteCount = buffer.getInt(24);
+        long expectedSize = Integer.BYTES * (HEADER_INTS + 3L * (jobCount + 1) + 2L * edgeCount + slotCount)
+                + nameByteCount;
+        if (expectedSize != buffer.capacity()) {
+            throw new IOException(path + " is truncated or corrupt: " + buffer.capacity() + " bytes, expected "
+                    + expectedSize);
+        }
+
+        int offset = HEADER_INTS * Integer.BYTES;
+        IntBuffer childOffsets = ints(buffer, offset, jobCount + 1);
+        offset += (jobCount + 1) * Integer.BYTES;
+        IntBuffer childTargets = ints(buffer, offset, edgeCount);
+        offset += edgeCount * Integer.BYTES;
+        IntBuffer parentOffsets = ints(buffer, offset, jobCount + 1);
+        offset += (jobCount + 1) * Integer.BYTES;
+        IntBuffer parentTargets = ints(buffer, offset, edgeCount);
+        offset += edgeCount * Integer.BYTES;
+        IntBuffer nameOffsets = ints(buffer, offset, jobCount + 1);
+        offset += (jobCount + 1) * Integer.BYTES;
+        IntBuffer slots = ints(buffer, offset, slotCount);
+        offset += slotCount * Integer.BYTES;
+        ByteBuffer nameBytes = buffer.slice(offset, nameByteCount);
+
+        Names names = new Names(jobCount, nameOffsets, slots, nameBytes, jobFactory);
+        return new JobGraph(names, childOffsets, childTargets, parentOffsets, parentTargets, rootCount);
+    }
+
+    private static IntBuffer ints(ByteBuffer buffer, int offset, int length) {
+        // A slice starts out big-endian, so the order is set again before taking the int view
+        return buffer.slice(offset, length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Build the open-addressing table from name hash to ID, with a load factor of at most one half
+     *
+     * @param names the UTF-8 name of each job, indexed by ID
+     * @return the slots, each an ID or -1 if empty
+     */
+    private static int[] buildSlots(byte[][] names) {
+        int capacity = Integer.highestOneBit(Math.max(2 * names.length, 1)) << 1;
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        int mask = capacity - 1;
+        for (int id = 0; id < names.length; id++) {
+            int slot = hash(names[id]) & mask;
+            while (slots[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+        return slots;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes of a name; part of the file format, so it must not change within a version
+     */
+    private static int hash(byte[] name) {
+        int h = 0x811C9DC5;
+        for (byte b : name) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The job names of a mapped snapshot, and the factory creating a job from its name
+     */
+    static final class Names {
+        private final int size;
+        private final IntBuffer offsets;
+        private final IntBuffer slots;
+        private final ByteBuffer bytes;
+        private final Function<String, Job> jobFactory;
+
+        Names(int size, IntBuffer offsets, IntBuffer slots, ByteBuffer bytes, Function<String, Job> jobFactory) {
+            this.size = size;
+            this.offsets = offsets;
+            this.slots = slots;
+            this.bytes = bytes;
+            this.jobFactory = jobFactory;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Job createJob(int id) {
+            int start = offsets.get(id);
+            byte[] name = new byte[offsets.get(id + 1) - start];
+            bytes.get(start, name);
+            return jobFactory.apply(new String(name, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Find the ID of a name
+         *
+         * @param name the name of a job
+         * @return the ID, or -1 if no job of the snapshot has this name
+         */
+        int find(String name) {
+            byte[] target = name.getBytes(StandardCharsets.UTF_8);
+            int mask = slots.capacity() - 1;
+            for (int slot = hash(target) & mask; ; slot = (slot + 1) & mask) {
+                int id = slots.get(slot);
+                if (id < 0) {
+                    return -1;
+                }
+                if (matches(id, target)) {
+                    return id;
+                }
+            }
+        }
+
+        private boolean matches(int id, byte[] target) {
+            int start = offsets.get(id);
+            if (offsets.get(id + 1) - start != target.length) {
+                return false;
+            }
+            for (int i = 0; i < target.length; i++) {
+                if (bytes.get(start + i) != target[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Buffers little-endian ints and bytes and writes them to a channel in large chunks
+     */
+    private static final class IntWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        IntWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
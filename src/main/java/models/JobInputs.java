@@ -0,0 +1,16 @@
+package models;
+
+/**
+ * The results of a job's parents, handed to a {@link ResultJob} when it runs.
+ */
+public interface JobInputs {
+    /**
+     * Getter method for the result of a parent Job
+     *
+     * @param parentJob a parent of the running Job
+     * @param <T>       the result type of the parent
+     * @return the result the parent produced in this run
+     * @throws IllegalArgumentException if the Job is not a parent of the running Job
+     */
+    <T> T get(ResultJob<T> parentJob);
+}
@@ -0,0 +1,84 @@
+package models;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The resources a Job holds while it runs: CPU slots, memory units and any number of named tokens.
+ * <p>
+ * Units are whatever the scheduler's resource pool counts, for example one CPU slot per core and one memory unit per
+ * 256 MB. Named tokens model scarce shared resources such as {@code "db-connection"}.
+ */
+public final class ResourceDemand {
+    private final int cpuSlots;
+    private final int memoryUnits;
+    private final Map<String, Integer> tokens;
+
+    /**
+     * Constructor for a demand of CPU slots and memory only
+     *
+     * @param cpuSlots    the number of CPU slots
+     * @param memoryUnits the number of memory units
+     * @throws IllegalArgumentException if an amount is negative
+     */
+    public ResourceDemand(int cpuSlots, int memoryUnits) {
+        this(cpuSlots, memoryUnits, Collections.emptyMap());
+    }
+
+    /**
+     * Constructor for the ResourceDemand class
+     *
+     * @param cpuSlots    the number of CPU slots
+     * @param memoryUnits the number of memory units
+     * @param tokens      the number of each named token, such as {@code Map.of("db-connection", 1)}
+     * @throws IllegalArgumentException if an amount is negative
+     */
+    public ResourceDemand(int cpuSlots, int memoryUnits, Map<String, Integer> tokens) {
+        if (cpuSlots < 0 || memoryUnits < 0) {
+            throw new IllegalArgumentException("Resource amounts must not be negative: " + cpuSlots + " CPU slots, "
+                    + memoryUnits + " memory units");
+        }
+        for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+            if (token.getValue() < 0) {
+                throw new IllegalArgumentException("Token amounts must not be negative: " + token);
+            }
+        }
+        this.cpuSlots = cpuSlots;
+        this.memoryUnits = memoryUnits;
+        this.tokens = Collections.unmodifiableMap(new LinkedHashMap<>(tokens));
+    }
+
+    /**
+     * Getter method for the number of CPU slots
+     *
+     * @return the number of CPU slots
+     */
+    public int getCpuSlots() {
+        return cpuSlots;
+    }
+
+    /**
+     * Getter method for the number of memory units
+     *
+     * @return the number of memory units
+     */
+    public int getMemoryUnits() {
+        return memoryUnits;
+    }
+
+    /**
+     * Getter method for the named tokens
+     *
+     * @return the number of each named token, unmodifiable
+     */
+    public Map<String, Integer> getTokens() {
+        return tokens;
+    }
+
+    @Override
+    public String toString() {
+        return cpuSlots + " CPU slots, " + memoryUnits + " memory units"
+                + (tokens.isEmpty() ? "" : ", tokens " + tokens);
+    }
+}
@@ -0,0 +1,74 @@
+package models;
+
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A Job that computes a typed result from the results of its parents.
+ * <p>
+ * The scheduler hands each result directly to the children of the job through {@link JobInputs}, and drops its
+ * own reference once every child has finished, so large intermediate results do not stay reachable for the whole
+ * run. Results of jobs without children are kept until the run itself is released.
+ *
+ * @param <T> the type of the result
+ */
+public class ResultJob<T> extends Job {
+    private final Function<JobInputs, T> body;
+
+    /**
+     * Constructor for the ResultJob class
+     *
+     * @param name       the name of the Job
+     * @param body       computes the result from the results of the parent Jobs
+     * @param parentJobs the parent Jobs of the current Job
+     */
+    public ResultJob(String name, Function<JobInputs, T> body, Job... parentJobs) {
+        this(name, (Consumer<String>) null, body, parentJobs);
+    }
+
+    /**
+     * Constructor for testing with dependency injection
+     *
+     * @param name       the name of the Job
+     * @param logger     logger function for output, or null to log asynchronously to standard output
+     * @param body       computes the result from the results of the parent Jobs
+     * @param parentJobs the parent Jobs of the current Job
+     */
+    public ResultJob(String name, Consumer<String> logger, Function<JobInputs, T> body, Job... parentJobs) {
+        super(name, logger, new Random(), parentJobs);
+        this.body = body;
+    }
+
+    /**
+     * Compute the result of the Job
+     *
+     * @param inputs the results of the parent Jobs
+     * @return the result
+     */
+    public T compute(JobInputs inputs) {
+        emit(JobEvent.STARTED);
+        T result = body.apply(inputs);
+        emit(JobEvent.COMPLETED);
+        return result;
+    }
+
+    /**
+     * Compute the result outside a scheduler run and discard it
+     * <p>
+     * Only a scheduler run holds the results of the parents, so reading one fails; a Job without parents runs as
+     * it would in a run.
+     *
+     * @throws IllegalStateException if the body reads the result of a parent
+     */
+    @Override
+    public void run() {
+        compute(new JobInputs() {
+            @Override
+            public <R> R get(ResultJob<R> parentJob) {
+                throw new IllegalStateException(getName() + " read the result of " + parentJob.getName()
+                        + ", which only a scheduler run provides");
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package models;
+
+import java.util.Random;
+
+/**
+ * How often and how quickly a failed Job is attempted again.
+ * <p>
+ * The delay before retry {@code n} (1-based) is {@code initialBackoffMs * 2^(n-1)}, capped at maxBackoffMs. Jitter
+ * then draws the actual delay uniformly from {@code [delay * (1 - jitter), delay]}, so jobs that failed together do
+ * not all retry at the same instant.
+ */
+public final class RetryPolicy {
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double jitter;
+
+    /**
+     * Constructor for the RetryPolicy class
+     *
+     * @param maxAttempts      the total number of attempts, including the first one
+     * @param initialBackoffMs the delay before the first retry in milliseconds
+     * @param maxBackoffMs     the upper bound of any delay in milliseconds
+     * @param jitter           the fraction of each delay that is randomized, from 0 (none) to 1 (full jitter)
+     * @throws IllegalArgumentException if an argument is out of range
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMs, long maxBackoffMs, double jitter) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1: " + maxAttempts);
+        }
+        if (initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs) {
+            throw new IllegalArgumentException("Backoff must satisfy 0 <= initial <= max: "
+                    + initialBackoffMs + ", " + maxBackoffMs);
+        }
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1: " + jitter);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Getter method for the total number of attempts
+     *
+     * @return the total number of attempts, including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Compute the delay before a retry
+     *
+     * @param retry  the number of the retry, 1 for the attempt after the first failure
+     * @param random source of the jitter
+     * @return the delay in milliseconds
+     */
+    public long getBackoffMs(int retry, Random random) {
+        // Doubling stops once it would pass the cap, so large retry numbers cannot overflow
+        long delay = initialBackoffMs;
+        for (int i = 1; i < retry && delay < maxBackoffMs; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxBackoffMs);
+        return delay - (long) (delay * jitter * random.nextDouble());
+    }
+}
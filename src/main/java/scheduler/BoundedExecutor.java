@@ -0,0 +1,47 @@
+package scheduler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An Executor that caps how many of its tasks run at once.
+ * <p>
+ * Meant for virtual threads: every task gets its own thread, which parks on the semaphore until a permit is free.
+ * A parked virtual thread is unmounted from its carrier, so waiting tasks cost memory but no OS thread.
+ */
+class BoundedExecutor implements Executor {
+    private final Executor delegate;
+    private final Semaphore permits;
+    private final int maxConcurrentJobs;
+
+    /**
+     * Constructor for the BoundedExecutor class
+     *
+     * @param delegate          the executor that runs the tasks
+     * @param maxConcurrentJobs the maximum number of tasks running at once
+     */
+    BoundedExecutor(Executor delegate, int maxConcurrentJobs) {
+        if (maxConcurrentJobs < 1) {
+            throw new IllegalArgumentException("maxConcurrentJobs must be at least 1");
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrentJobs);
+        this.maxConcurrentJobs = maxConcurrentJobs;
+    }
+
+    int getMaxConcurrentJobs() {
+        return maxConcurrentJobs;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+}
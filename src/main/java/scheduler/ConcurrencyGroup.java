@@ -0,0 +1,164 @@
+package scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A named limit on the jobs calling the same downstream service, shared by every run of a scheduler.
+ * <p>
+ * Jobs join a group with {@link models.Job#setConcurrencyGroup(String)}. At most {@code maxInFlight} of them run at
+ * once, and with {@link #setRateLimit(double, int)} a token bucket also limits how fast they start: tokens refill at
+ * a fixed rate up to the burst size, and each started attempt takes one. A ready job over either limit waits in the
+ * group's queue, in the order it became ready, without holding a worker thread, so other ready work keeps flowing.
+ * When only the rate limit holds jobs back, the scheduler's timer wakes the group as the next token arrives.
+ */
+public class ConcurrencyGroup {
+    private final String name;
+    private final int maxInFlight;
+    private final ArrayDeque<JobTask> waiting = new ArrayDeque<>();
+    private int inFlight;
+    // Token bucket; a rate of 0 means no rate limit
+    private double jobsPerNano;
+    private int burst;
+    private double tokens;
+    private long refilledAtNanos;
+    private boolean wakeUpScheduled;
+    // The timer of the scheduler whose runs submit to the group
+    private ScheduledExecutorService timer;
+
+    /**
+     * Constructor for the ConcurrencyGroup class
+     *
+     * @param name        the name jobs join the group by
+     * @param maxInFlight the maximum number of the group's jobs running at once
+     * @throws IllegalArgumentException if maxInFlight is less than 1
+     */
+    public ConcurrencyGroup(String name, int maxInFlight) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name must not be null");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be at least 1: " + maxInFlight);
+        }
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Limit how fast the group's jobs start, in addition to how many run at once
+     *
+     * @param jobsPerSecond the sustained number of job starts per second, or 0 for no rate limit (the default)
+     * @param burst         the number of starts allowed back to back after an idle period
+     * @throws IllegalArgumentException if jobsPerSecond is negative or not finite, or burst is less than 1
+     */
+    public synchronized void setRateLimit(double jobsPerSecond, int burst) {
+        if (!(jobsPerSecond >= 0 && jobsPerSecond < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Rate must be a finite number of at least 0: " + jobsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1: " + burst);
+        }
+        this.jobsPerNano = jobsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Getter method for the name of the group
+     *
+     * @return the name jobs join the group by
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter method for the maximum number of the group's jobs running at once
+     *
+     * @return the limit
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Getter method for the number of the group's jobs admitted and not yet finished
+     *
+     * @return the number of jobs in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Getter method for the number of ready jobs waiting for the group to admit them
+     *
+     * @return the number of waiting jobs
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Queue a ready job's task; the group admits it as soon as it has a free slot and token
+     *
+     * @param task  the task of the job
+     * @param timer the timer that wakes the group when a token arrives
+     */
+    void submit(JobTask task, ScheduledExecutorService timer) {
+        synchronized (this) {
+            this.timer = timer;
+            waiting.add(task);
+        }
+        admitWaiting();
+    }
+
+    /**
+     * Free the slot of a job whose attempt ended, and admit the next waiting job
+     */
+    void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        admitWaiting();
+    }
+
+    private void admitWaiting() {
+        List<JobTask> admitted = new ArrayList<>();
+        synchronized (this) {
+            if (jobsPerNano > 0) {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - refilledAtNanos) * jobsPerNano);
+                refilledAtNanos = now;
+            }
+            while (!waiting.isEmpty() && inFlight < maxInFlight && (jobsPerNano == 0 || tokens >= 1)) {
+                if (jobsPerNano > 0) {
+                    tokens--;
+                }
+                inFlight++;
+                admitted.add(waiting.poll());
+            }
+            if (!waiting.isEmpty() && inFlight < maxInFlight && !wakeUpScheduled) {
+                // Held back by the rate limit only: come back when the next token has accrued
+                long delayNanos = (long) Math.ceil((1 - tokens) / jobsPerNano);
+                wakeUpScheduled = true;
+                timer.schedule(this::wakeUp, delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        // Started outside the lock, since starting a task may run it on this thread
+        for (JobTask task : admitted) {
+            task.admit(this);
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (this) {
+            wakeUpScheduled = false;
+        }
+        admitWaiting();
+    }
+}
@@ -0,0 +1,1533 @@
+package scheduler;
+
+import models.Job;
+import models.JobGraph;
+import models.JobInputs;
+import models.ResourceDemand;
+import models.ResultJob;
+import models.RetryPolicy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A handle for one execution of a {@link JobGraph} on a {@link ParallelJobScheduler}.
+ * <p>
+ * Holds all per-run state: a pending-parent counter and status per job, the number of jobs that have not finished
+ * yet, and the thread running each job so the run can be cancelled. Many runs can share the same executor
+ * concurrently. Completion is exposed as a {@link CompletableFuture} for the whole run and for each job, so callers
+ * can compose further work without blocking a thread.
+ * <p>
+ * Every job moves from PENDING to a terminal {@link JobStatus} by compare-and-set, and whoever wins that transition
+ * (the worker, the timeout timer or {@link #cancel()}) accounts for the job. A job that ignores its interrupt
+ * therefore cannot hold up the rest of the run. When a job throws or exceeds its timeout, the scheduler's
+ * {@link FailurePolicy} decides whether the whole run is cancelled or only the job's descendants are skipped. A
+ * job with a {@link RetryPolicy} goes back to PENDING after a failed attempt and is re-dispatched by the scheduler's
+ * timer once its backoff has passed, so no worker sleeps through the delay.
+ * <p>
+ * When the scheduler has {@link SchedulerListener}s, the run timestamps each job as it becomes ready and as it
+ * starts, and reports every attempt and finally the whole run to them. Without listeners no timestamps are taken.
+ * <p>
+ * With a {@link ResultCache}, a job is marked CACHED with the cached result instead of being run if a successful run
+ * had the same input fingerprint for it and for each of its ancestors, so only jobs that are dirty or downstream of a
+ * dirty job run.
+ * <p>
+ * With a {@link RunJournal}, jobs the journal recorded as finished are marked RESTORED up front and never
+ * dispatched; the run starts from every job whose parents are all finished, and records each job that succeeds.
+ * <p>
+ * With a {@link ResourcePool}, a ready job that declares a {@link models.ResourceDemand} waits in the pool until
+ * its resources are free, and only then is handed to the executor. Before that, a job in a
+ * {@link ConcurrencyGroup} waits in the group's queue until the group has a free slot and, if rate limited, a token.
+ * <p>
+ * With a dispatch batch size, the worker finishing a job runs one child it released next, on the same thread, and
+ * hands the other released children to the executor as {@link JobBatch}es instead of one task per job. Jobs that
+ * need admission by a group or pool are always dispatched on their own.
+ * <p>
+ * The result of a {@link ResultJob} is held only until every child of the job has finished, then released.
+ * <p>
+ * The graph is compiled when the run is submitted, so a Job created later is not part of the run until it is added
+ * with {@link #addJob(Job)}; {@link #addDependency(Job, Job)} adds an edge between two jobs of the run. Added jobs
+ * get the next free IDs, their per-job state grows in chunks that never move, and their edges are kept in
+ * per-job lists next to the compiled graph, which stays immutable. Only additions are serialized; dispatching and
+ * accounting for jobs stay lock-free.
+ */
+public class DagRun {
+    // Marks a result slot whose value was dropped after every child had read it
+    private static final Object RELEASED = new Object();
+
+    private final JobGraph graph;
+    private final ParallelJobScheduler scheduler;
+    private final Executor executor;
+    private final JobCostModel costModel;
+    private final GrowableArrays.Longs priorities;
+    private final long defaultJobTimeoutMs;
+    private final FailurePolicy failurePolicy;
+    private final ResultCache resultCache;
+    private final RunJournal journal;
+    private final ResourcePool resourcePool;
+    private final SchedulerListener[] listeners;
+    // 0 unless ready jobs are handed to the executor in batches, with one kept by the finishing worker
+    private final int dispatchBatchSize;
+    private final int parallelism;
+    // Set for graphs that create their jobs on first use, whose jobs are checked when they become ready instead
+    private final boolean checksJobsOnDispatch;
+    private final long submittedNanos;
+    // Metrics state, allocated only when there are listeners
+    private final GrowableArrays.Longs readyNanos;
+    private final GrowableArrays.Longs jobRunNanos;
+    private final AtomicInteger readyJobs;
+    private final AtomicInteger maxReadyJobs;
+    private final GrowableArrays.Ints pendingParents;
+    private final AtomicInteger remainingJobs;
+    private final GrowableArrays.References<JobStatus> jobStatuses;
+    private final GrowableArrays.Ints attempts;
+    private final GrowableArrays.References<Thread> runningThreads;
+    private final GrowableArrays.References<Object> results;
+    // The children yet to read each result; -1 once the result is released
+    private final GrowableArrays.Ints unreadResults;
+    private final GrowableArrays.References<CompletableFuture<Object>> jobFutures;
+    // The key each job's outcome is cached under, allocated only with a result cache
+    private final GrowableArrays.References<String> cacheKeys;
+    // Jobs added while the run is in progress get the IDs from graph.size() up, in the order they were added
+    private final GrowableArrays.References<Job> addedJobs;
+    private final Map<Job, Integer> addedIds = new ConcurrentHashMap<>();
+    // Serializes adding jobs and dependencies; the dispatch path never takes it
+    private final Object mutationLock = new Object();
+    private volatile int jobCount;
+    // Created by the first added dependency: the heads of each job's lists of added children and added parents
+    private volatile GrowableArrays.References<AddedEdge> addedChildren;
+    private volatile GrowableArrays.References<AddedEdge> addedParents;
+    // A topological rank per job, created when an added dependency first contradicts the ID order; guarded by
+    // mutationLock
+    private int[] ranks;
+    // Failures are rare, so they are kept sparsely by ID instead of in a per-job array
+    private final Map<Integer, Throwable> failures = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> completionFuture;
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+    private volatile ScheduledFuture<?> deadline;
+
+    /**
+     * Constructor for the DagRun class
+     *
+     * @param scheduler the scheduler the run belongs to
+     * @param graph     the compiled graph to run
+     * @param journal   the journal to resume from and record to, or null
+     */
+    DagRun(ParallelJobScheduler scheduler, JobGraph graph, RunJournal journal) {
+        this.graph = graph;
+        this.scheduler = scheduler;
+        this.executor = scheduler.getDispatchExecutor();
+        this.costModel = scheduler.getCostModel();
+        this.defaultJobTimeoutMs = scheduler.getJobTimeoutMs();
+        this.failurePolicy = scheduler.getFailurePolicy();
+        this.resultCache = scheduler.getResultCache();
+        this.journal = journal;
+        this.resourcePool = scheduler.getResourcePool();
+        this.listeners = scheduler.getListeners();
+        this.dispatchBatchSize = scheduler.getDispatchBatchSize();
+        this.parallelism = scheduler.getParallelism();
+        this.submittedNanos = listeners.length > 0 ? System.nanoTime() : 0;
+        this.readyNanos = listeners.length > 0 ? new GrowableArrays.Longs(new long[graph.size()]) : null;
+        this.jobRunNanos = listeners.length > 0 ? new GrowableArrays.Longs(new long[graph.size()]) : null;
+        this.readyJobs = listeners.length > 0 ? new AtomicInteger() : null;
+        this.maxReadyJobs = listeners.length > 0 ? new AtomicInteger() : null;
+        // With a cost model, ready jobs are ranked by remaining critical-path length; otherwise they run FIFO
+        this.priorities = costModel == null ? null
+                : new GrowableArrays.Longs(graph.computeCriticalPathLengths(costModel.estimateCosts(graph)));
+        this.pendingParents = new GrowableArrays.Ints(graph.size());
+        this.jobStatuses = new GrowableArrays.References<>(graph.size());
+        this.attempts = new GrowableArrays.Ints(graph.size());
+        this.results = new GrowableArrays.References<>(graph.size());
+        this.unreadResults = new GrowableArrays.Ints(graph.size());
+        this.cacheKeys = resultCache != null ? new GrowableArrays.References<>(graph.size()) : null;
+        this.checksJobsOnDispatch = graph.createsJobsLazily();
+        int restoredJobs = 0;
+        for (int id = 0; id < graph.size(); id++) {
+            pendingParents.set(id, graph.getParentCount(id));
+            jobStatuses.set(id, JobStatus.PENDING);
+            // Every child is a potential reader of the result; the count is only used if the job is a ResultJob
+            unreadResults.set(id, graph.getChildEnd(id) - graph.getChildStart(id));
+            if (!checksJobsOnDispatch) {
+                checkRunnable(getJob(id));
+            }
+        }
+        if (journal != null) {
+            // A snapshot cannot hold two jobs of the same name, so only compiled graphs are checked
+            if (!graph.createsJobsLazily()) {
+                checkUniqueNames();
+            }
+            // Parents come first in ID order, so each restored job is seen before its children
+            for (int id = 0; id < graph.size(); id++) {
+                if (journal.isCompleted(getJob(id))) {
+                    restore(id);
+                    restoredJobs++;
+                }
+            }
+        }
+        this.remainingJobs = new AtomicInteger(graph.size() - restoredJobs);
+        this.runningThreads = new GrowableArrays.References<>(graph.size());
+        // Per-job futures are created on first request, so runs nobody observes per job allocate none
+        this.jobFutures = new GrowableArrays.References<>(graph.size());
+        this.addedJobs = new GrowableArrays.References<>(0);
+        this.jobCount = graph.size();
+        this.completionFuture = new CompletableFuture<>();
+    }
+
+    /**
+     * Reject a graph whose jobs a journal could not tell apart
+     * <p>
+     * The journal records jobs by name, so a job sharing its name with one that finished before a crash would be
+     * restored on resume without ever having run.
+     *
+     * @throws IllegalArgumentException if two jobs of the graph have the same name
+     */
+    private void checkUniqueNames() {
+        Set<String> names = new HashSet<>();
+        for (int id = 0; id < graph.size(); id++) {
+            String name = getJob(id).getName();
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Job name " + name
+                        + " is used by more than one job, so a journal cannot tell them apart");
+            }
+        }
+    }
+
+    /**
+     * Reject a job that could never start, since it would wait forever
+     *
+     * @param job the Job
+     * @throws IllegalArgumentException if the Job needs more resources than the pool has, or is in a concurrency
+     *                                  group the scheduler does not have
+     */
+    private void checkRunnable(Job job) {
+        if (resourcePool != null && job.getResourceDemand() != null) {
+            resourcePool.checkCapacity(job);
+        }
+        String groupName = job.getConcurrencyGroup();
+        if (groupName != null && scheduler.getConcurrencyGroup(groupName) == null) {
+            throw new IllegalArgumentException(job.getName() + " is in concurrency group " + groupName
+                    + ", which the scheduler does not have");
+        }
+    }
+
+    /**
+     * Dispatch the jobs without parents; every other job is dispatched when its last parent completes
+     *
+     * @param runTimeoutMs the deadline for the whole run in milliseconds, or 0 for none
+     */
+    void start(long runTimeoutMs) {
+        if (remainingJobs.get() == 0) {
+            finish();
+            return;
+        }
+        if (runTimeoutMs > 0) {
+            deadline = scheduler.getTimer().schedule(this::deadlineExceeded, runTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        if (journal == null && dispatchBatchSize > 0) {
+            int[] ready = new int[graph.getRootCount()];
+            int readyCount = 0;
+            for (int id = 0; id < graph.getRootCount(); id++) {
+                if (needsAdmission(id)) {
+                    dispatch(id);
+                } else {
+                    markReady(id);
+                    ready[readyCount++] = id;
+                }
+            }
+            dispatchBatches(ready, readyCount);
+            return;
+        }
+        if (journal == null) {
+            for (int id = 0; id < graph.getRootCount(); id++) {
+                dispatch(id);
+            }
+            return;
+        }
+        // Resume from the frontier: every unfinished job whose parents all finished in an earlier run
+        for (int id = 0; id < graph.size(); id++) {
+            if (pendingParents.get(id) == 0 && jobStatuses.get(id) == JobStatus.PENDING) {
+                dispatch(id);
+            }
+        }
+    }
+
+    /**
+     * Mark a job the journal recorded as finished RESTORED, and release its children's dependency on it
+     *
+     * @param id the ID of the Job
+     */
+    private void restore(int id) {
+        jobStatuses.set(id, JobStatus.RESTORED);
+        for (int e = graph.getChildStart(id); e < graph.getChildEnd(id); e++) {
+            pendingParents.decrementAndGet(graph.getChild(e));
+        }
+        // A restored job reads no parent results
+        for (int e = graph.getParentStart(id); e < graph.getParentEnd(id); e++) {
+            int parentId = graph.getParent(e);
+            if (getJob(parentId) instanceof ResultJob) {
+                unreadResults.decrementAndGet(parentId);
+            }
+        }
+    }
+
+    /**
+     * Getter method for the compiled graph of this run
+     *
+     * @return the graph being run, without the jobs and dependencies added to the run since it was submitted
+     */
+    public JobGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Wait for every job of the run to finish
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the timeout argument
+     * @return true if the run finished, false if the timeout elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            completionFuture.get(timeout, unit);
+        } catch (ExecutionException | CancellationException e) {
+            // Finished, just not successfully
+        } catch (TimeoutException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether every job of the run has finished
+     *
+     * @return true if the run has finished
+     */
+    public boolean isDone() {
+        return completionFuture.isDone();
+    }
+
+    /**
+     * Getter method for the future of the whole run
+     * <p>
+     * The future completes normally once every job has succeeded. Otherwise it completes exceptionally with the
+     * first failure: the exception a job threw, a {@link TimeoutException} if the run passed its deadline or a job
+     * passed its timeout, or a {@link CancellationException} if the run was cancelled. {@link #getSummary()} tells
+     * how each job ended. Dependent actions without an explicit executor run on the thread that finished the last
+     * job. Completing or cancelling this future does not stop the jobs; use {@link #cancel()} for that.
+     *
+     * @return the future of the run
+     */
+    public CompletableFuture<Void> getCompletionFuture() {
+        return completionFuture;
+    }
+
+    /**
+     * Getter method for the future of a single job of the run
+     * <p>
+     * The future completes normally once the job has succeeded. It completes exceptionally with the exception the
+     * job threw, with a {@link TimeoutException} if the job passed its timeout, and with a
+     * {@link CancellationException} if it was cancelled or skipped.
+     *
+     * @param job the Job
+     * @return the future of the Job in this run
+     * @throws IllegalArgumentException if the Job is not part of this run
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Void> getJobFuture(Job job) {
+        return (CompletableFuture<Void>) (CompletableFuture<?>) jobFuture(requireId(job));
+    }
+
+    /**
+     * Getter method for the future of a single job of the run, completed with the job's result
+     * <p>
+     * The result of a job with children is released once they have all finished. Request the future before that
+     * happens, typically right after {@link ParallelJobScheduler#submit}; a future requested later completes
+     * exceptionally with an {@link IllegalStateException}.
+     *
+     * @param job the Job
+     * @param <T> the result type of the Job
+     * @return the future of the Job's result in this run
+     * @throws IllegalArgumentException if the Job is not part of this run
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getJobFuture(ResultJob<T> job) {
+        return (CompletableFuture<T>) jobFuture(requireId(job));
+    }
+
+    private CompletableFuture<Object> jobFuture(int id) {
+        CompletableFuture<Object> future = jobFutures.get(id);
+        if (future == null) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            future = jobFutures.compareAndExchange(id, null, created);
+            if (future == null) {
+                future = created;
+            }
+        }
+        // The job may have finished before the future existed; completing twice is harmless
+        completeJobFuture(id, future, jobStatuses.get(id));
+        return future;
+    }
+
+    /**
+     * Getter method for the status of a single job of the run
+     *
+     * @param job the Job
+     * @return the current status of the Job in this run
+     * @throws IllegalArgumentException if the Job is not part of this run
+     */
+    public JobStatus getJobStatus(Job job) {
+        return jobStatuses.get(requireId(job));
+    }
+
+    /**
+     * Getter method for the number of times a job of the run has been started
+     *
+     * @param job the Job
+     * @return the number of attempts so far, more than 1 if the Job was retried
+     * @throws IllegalArgumentException if the Job is not part of this run
+     */
+    public int getAttempts(Job job) {
+        return attempts.get(requireId(job));
+    }
+
+    /**
+     * Getter method for the status of every job of the run
+     *
+     * @return a snapshot of the job statuses, final once the run is done
+     */
+    public RunSummary getSummary() {
+        int count = jobCount;
+        JobStatus[] statuses = new JobStatus[count];
+        int[] attemptCounts = new int[count];
+        for (int id = 0; id < statuses.length; id++) {
+            statuses[id] = jobStatuses.get(id);
+            attemptCounts[id] = attempts.get(id);
+        }
+        return new RunSummary(this, statuses, attemptCounts, new HashMap<>(failures));
+    }
+
+    /**
+     * Cancel the run: running jobs are interrupted and jobs that have not started yet are skipped
+     * <p>
+     * Every unfinished job is marked CANCELLED at once, so the run finishes without waiting for interrupted jobs
+     * to return.
+     */
+    public void cancel() {
+        int[] cancelledIds = new int[8];
+        int cancelledCount = 0;
+        synchronized (this) {
+            cancelled = true;
+            // A job added after this read sees the flag and cancels itself
+            int count = jobCount;
+            for (int id = 0; id < count; id++) {
+                boolean wasRunning = false;
+                if (jobStatuses.compareAndSet(id, JobStatus.PENDING, JobStatus.CANCELLED)
+                        || (wasRunning = jobStatuses.compareAndSet(id, JobStatus.RUNNING, JobStatus.CANCELLED))) {
+                    if (wasRunning) {
+                        interrupt(id);
+                    }
+                    if (cancelledCount == cancelledIds.length) {
+                        cancelledIds = Arrays.copyOf(cancelledIds, cancelledCount * 2);
+                    }
+                    cancelledIds[cancelledCount++] = id;
+                }
+            }
+        }
+        // Complete outside the lock, since completing futures runs the callers' callbacks
+        for (int i = 0; i < cancelledCount; i++) {
+            completeJob(cancelledIds[i], JobStatus.CANCELLED);
+        }
+    }
+
+    /**
+     * Check whether the run was cancelled
+     *
+     * @return true if {@link #cancel()} was called or the run passed its deadline
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Add a job to the run while it is in progress, as a child of its parent jobs
+     * <p>
+     * This is how a job fans out into work it discovers while running: create the new Jobs with the running job
+     * among their parents and add them, parents first. A new Job is dispatched once all its parents have
+     * succeeded, at once if they already have, and is skipped if one of them did not succeed or cancelled if the
+     * run was. A new Job has no children yet, so it cannot close a cycle. Additions take a lock shared only with
+     * other additions, so jobs keep being dispatched meanwhile.
+     *
+     * @param job the Job, whose parents must all be part of the run
+     * @throws IllegalArgumentException if the Job is already part of the run, a parent is not, or the Job could
+     *                                  never start
+     * @throws IllegalStateException    if the run has finished, or a parent's result was already released
+     */
+    public void addJob(Job job) {
+        List<Job> parents = job.getParentJobs();
+        int[] parentIds = new int[parents.size()];
+        AddedEdge[] edges = new AddedEdge[parentIds.length];
+        int id;
+        synchronized (mutationLock) {
+            if (findId(job) >= 0) {
+                throw new IllegalArgumentException(job.getName() + " is already part of this run");
+            }
+            for (int i = 0; i < parentIds.length; i++) {
+                parentIds[i] = requireId(parents.get(i));
+            }
+            checkRunnable(job);
+            for (int i = 0; i < parentIds.length; i++) {
+                try {
+                    retainResult(parentIds[i]);
+                } catch (IllegalStateException e) {
+                    releaseResults(parentIds, i);
+                    throw e;
+                }
+            }
+            int remaining;
+            do {
+                remaining = remainingJobs.get();
+                if (remaining == 0) {
+                    releaseResults(parentIds, parentIds.length);
+                    throw new IllegalStateException("Cannot add " + job.getName() + ", the run has finished");
+                }
+            } while (!remainingJobs.compareAndSet(remaining, remaining + 1));
+
+            id = jobCount;
+            ensureCapacity(id + 1);
+            addedJobs.set(id - graph.size(), job);
+            addedIds.put(job, id);
+            // One more than the parents, so the Job cannot be dispatched until every edge is in place
+            pendingParents.set(id, parentIds.length + 1);
+            jobStatuses.set(id, JobStatus.PENDING);
+            if (priorities != null) {
+                // A fan-out continues at the rank of its most urgent parent
+                long priority = 0;
+                for (int parentId : parentIds) {
+                    priority = Math.max(priority, priorities.get(parentId));
+                }
+                priorities.set(id, priority);
+            }
+            if (ranks != null) {
+                if (id == ranks.length) {
+                    ranks = Arrays.copyOf(ranks, id * 2);
+                }
+                ranks[id] = id;
+            }
+            jobCount = id + 1;
+            for (int i = 0; i < parentIds.length; i++) {
+                edges[i] = link(parentIds[i], id);
+            }
+        }
+        // Outside the lock, since resolving an edge may dispatch or complete jobs
+        for (int i = 0; i < parentIds.length; i++) {
+            resolveIfFinished(parentIds[i], edges[i]);
+        }
+        if (cancelled && jobStatuses.compareAndSet(id, JobStatus.PENDING, JobStatus.CANCELLED)) {
+            completeJob(id, JobStatus.CANCELLED);
+        }
+        // Drop the extra count taken above, dispatching the Job if its parents have all succeeded
+        parentSucceeded(id);
+    }
+
+    /**
+     * Add a dependency between two jobs of the run while it is in progress
+     * <p>
+     * The child must still be waiting for a parent, so it cannot have started. From then on it also waits for the
+     * new parent, or is skipped if that parent already did not succeed. The dependency is checked for cycles as it
+     * is added, incrementally: if the parent already comes before the child in the run's topological order the
+     * check takes constant time, and otherwise only the jobs ranked between the two are searched and reordered.
+     *
+     * @param parent the Job to finish first
+     * @param child  the Job to wait for it
+     * @throws IllegalArgumentException if a Job is not part of the run, or the dependency would close a cycle
+     * @throws IllegalStateException    if the child is no longer waiting for a parent, or the parent's result was
+     *                                  already released
+     */
+    public void addDependency(Job parent, Job child) {
+        int parentId;
+        AddedEdge edge;
+        synchronized (mutationLock) {
+            parentId = requireId(parent);
+            int childId = requireId(child);
+            orderBefore(parentId, childId);
+            retainResult(parentId);
+            if (!holdWaitingJob(childId)) {
+                releaseResult(parentId);
+                throw new IllegalStateException(child.getName() + " is no longer waiting for its parents");
+            }
+            edge = link(parentId, childId);
+        }
+        resolveIfFinished(parentId, edge);
+    }
+
+    /**
+     * Make room in every per-job array for the IDs below a length; called with the mutation lock held
+     *
+     * @param length the number of jobs
+     */
+    private void ensureCapacity(int length) {
+        addedJobs.ensureCapacity(length - graph.size());
+        pendingParents.ensureCapacity(length);
+        jobStatuses.ensureCapacity(length);
+        attempts.ensureCapacity(length);
+        runningThreads.ensureCapacity(length);
+        results.ensureCapacity(length);
+        unreadResults.ensureCapacity(length);
+        jobFutures.ensureCapacity(length);
+        if (cacheKeys != null) {
+            cacheKeys.ensureCapacity(length);
+        }
+        if (priorities != null) {
+            priorities.ensureCapacity(length);
+        }
+        if (readyNanos != null) {
+            readyNanos.ensureCapacity(length);
+            jobRunNanos.ensureCapacity(length);
+        }
+        if (addedChildren != null) {
+            addedChildren.ensureCapacity(length);
+            addedParents.ensureCapacity(length);
+        }
+    }
+
+    /**
+     * Record an added dependency in the parent's list of added children and the child's list of added parents;
+     * called with the mutation lock held
+     *
+     * @param parentId the ID of the parent
+     * @param childId  the ID of the child
+     * @return the edge in the parent's list, which the parent or the adder claims to account for the parent
+     */
+    private AddedEdge link(int parentId, int childId) {
+        GrowableArrays.References<AddedEdge> children = addedChildren;
+        GrowableArrays.References<AddedEdge> parents = addedParents;
+        if (children == null) {
+            children = new GrowableArrays.References<>(graph.size());
+            parents = new GrowableArrays.References<>(graph.size());
+            children.ensureCapacity(jobCount);
+            parents.ensureCapacity(jobCount);
+            addedParents = parents;
+            addedChildren = children;
+        }
+        // Lists only grow under the lock, so a volatile write pushes and readers walk them without one
+        parents.set(childId, new AddedEdge(parentId, parents.get(childId)));
+        AddedEdge edge = new AddedEdge(childId, children.get(parentId));
+        children.set(parentId, edge);
+        return edge;
+    }
+
+    /**
+     * Account for the parent of an added edge if it finished before it could see the edge
+     * <p>
+     * A finishing job sets its terminal status before it walks its added children, and an adder links the edge
+     * before it reads the status, so at least one of the two sees the other. When both do, the claim decides.
+     *
+     * @param parentId the ID of the parent
+     * @param edge     the edge in the parent's list of added children
+     */
+    private void resolveIfFinished(int parentId, AddedEdge edge) {
+        JobStatus status = jobStatuses.get(parentId);
+        if (status.isSuccessful()) {
+            if (edge.claim()) {
+                parentSucceeded(edge.id);
+            }
+        } else if (status.isTerminal() && jobStatuses.compareAndSet(edge.id, JobStatus.PENDING, JobStatus.SKIPPED)) {
+            completeJob(edge.id, JobStatus.SKIPPED);
+            skipDescendants(edge.id);
+        }
+    }
+
+    /**
+     * Count one more parent for a job, unless it is no longer waiting for any
+     *
+     * @param id the ID of the Job
+     * @return true if the Job was still waiting and now also waits for one more parent
+     */
+    private boolean holdWaitingJob(int id) {
+        while (true) {
+            int pending = pendingParents.get(id);
+            if (pending == 0) {
+                return false; // Dispatched, or about to be
+            }
+            if (pendingParents.compareAndSet(id, pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Count one more child that will read a job's result
+     *
+     * @param id the ID of the parent Job
+     * @throws IllegalStateException if the result was already released
+     */
+    private void retainResult(int id) {
+        if (!(getJob(id) instanceof ResultJob)) {
+            return;
+        }
+        while (true) {
+            int unread = unreadResults.get(id);
+            if (unread < 0) {
+                throw new IllegalStateException(getJob(id).getName()
+                        + " result was released after its children read it");
+            }
+            if (unreadResults.compareAndSet(id, unread, unread + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Count one child less that will read a job's result, and drop the result after the last
+     *
+     * @param id the ID of the parent Job
+     */
+    private void releaseResult(int id) {
+        // The compare-and-set decides a race with a child being added, which may still revive the count
+        if (getJob(id) instanceof ResultJob && unreadResults.decrementAndGet(id) == 0
+                && unreadResults.compareAndSet(id, 0, -1)) {
+            results.set(id, RELEASED);
+        }
+    }
+
+    /**
+     * Store a job's result, unless every child already finished without reading it and its slot was released
+     *
+     * @param id     the ID of the Job
+     * @param result the result
+     */
+    private void storeResult(int id, Object result) {
+        // Only the job's own attempt writes the slot, so it holds null unless it was released meanwhile
+        results.compareAndSet(id, null, result);
+    }
+
+    /**
+     * Drop a job's result after an attempt that did not succeed, keeping the slot released if it is
+     *
+     * @param id the ID of the Job
+     */
+    private void clearResult(int id) {
+        Object result = results.get(id);
+        if (result != null && result != RELEASED) {
+            results.compareAndSet(id, result, null);
+        }
+    }
+
+    private void releaseResults(int[] ids, int count) {
+        for (int i = 0; i < count; i++) {
+            releaseResult(ids[i]);
+        }
+    }
+
+    /**
+     * Make sure a parent ranks before its new child in the run's topological order, reordering the jobs ranked
+     * between them if needed (the dynamic topological sort of Pearce and Kelly); called with the mutation lock held
+     * <p>
+     * IDs are a topological order until a dependency contradicts them, so ranks are only kept from then on.
+     *
+     * @param parentId the ID of the parent
+     * @param childId  the ID of the child
+     * @throws IllegalArgumentException if the child is the parent or one of its ancestors
+     */
+    private void orderBefore(int parentId, int childId) {
+        if (ranks == null) {
+            if (parentId < childId) {
+                return;
+            }
+            ranks = new int[Math.max(jobCount, 8)];
+            for (int id = 0; id < jobCount; id++) {
+                ranks[id] = id;
+            }
+        }
+        int lower = ranks[childId];
+        int upper = ranks[parentId];
+        if (upper < lower) {
+            return;
+        }
+        long[] descendants = parentId == childId ? null : collectWithin(childId, true, upper, parentId);
+        if (descendants == null) {
+            throw new IllegalArgumentException("Adding the dependency " + getJob(parentId).getName() + " -> "
+                    + getJob(childId).getName() + " would close a cycle");
+        }
+        long[] ancestors = collectWithin(parentId, false, lower, -1);
+        // Hand the ranks of both sets out again in ascending order, the parent's ancestors first
+        int[] pool = new int[ancestors.length + descendants.length];
+        for (int i = 0; i < ancestors.length; i++) {
+            pool[i] = (int) (ancestors[i] >>> 32);
+        }
+        for (int i = 0; i < descendants.length; i++) {
+            pool[ancestors.length + i] = (int) (descendants[i] >>> 32);
+        }
+        Arrays.sort(pool);
+        for (int i = 0; i < ancestors.length; i++) {
+            ranks[(int) ancestors[i]] = pool[i];
+        }
+        for (int i = 0; i < descendants.length; i++) {
+            ranks[(int) descendants[i]] = pool[ancestors.length + i];
+        }
+    }
+
+    /**
+     * Collect a job and the jobs reachable from it without passing a rank
+     *
+     * @param start    the ID to search from
+     * @param children true to follow children and stay below the bound, false to follow parents and stay above it
+     * @param bound    the rank the collected jobs stay within
+     * @param target   an ID that must not be reachable, or -1
+     * @return the collected jobs as rank-and-ID keys sorted by rank, or null if the target was reached
+     */
+    private long[] collectWithin(int start, boolean children, int bound, int target) {
+        BitSet visited = new BitSet();
+        int[] stack = new int[8];
+        int size = 0;
+        long[] keys = new long[8];
+        int count = 0;
+        visited.set(start);
+        stack[size++] = start;
+        while (size > 0) {
+            int current = stack[--size];
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = (long) ranks[current] << 32 | current;
+            for (int next : neighbours(current, children)) {
+                if (next == target) {
+                    return null;
+                }
+                boolean within = children ? ranks[next] < bound : ranks[next] > bound;
+                if (within && !visited.get(next)) {
+                    visited.set(next);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = next;
+                }
+            }
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private int[] neighbours(int id, boolean children) {
+        int start = 0;
+        int end = 0;
+        if (id < graph.size()) {
+            start = children ? graph.getChildStart(id) : graph.getParentStart(id);
+            end = children ? graph.getChildEnd(id) : graph.getParentEnd(id);
+        }
+        AddedEdge added = children ? addedChildrenOf(id) : addedParentsOf(id);
+        int count = end - start;
+        for (AddedEdge edge = added; edge != null; edge = edge.next) {
+            count++;
+        }
+        int[] ids = new int[count];
+        for (int e = start; e < end; e++) {
+            ids[e - start] = children ? graph.getChild(e) : graph.getParent(e);
+        }
+        int i = end - start;
+        for (AddedEdge edge = added; edge != null; edge = edge.next) {
+            ids[i++] = edge.id;
+        }
+        return ids;
+    }
+
+    private AddedEdge addedChildrenOf(int id) {
+        GrowableArrays.References<AddedEdge> children = addedChildren;
+        return children == null ? null : children.get(id);
+    }
+
+    private AddedEdge addedParentsOf(int id) {
+        GrowableArrays.References<AddedEdge> parents = addedParents;
+        return parents == null ? null : parents.get(id);
+    }
+
+    private void markReady(int id) {
+        if (readyNanos != null) {
+            readyNanos.set(id, System.nanoTime());
+            maxReadyJobs.accumulateAndGet(readyJobs.incrementAndGet(), Math::max);
+        }
+    }
+
+    private void dispatch(int id) {
+        if (checksJobsOnDispatch && id < graph.size() && !checkRunnableOnDispatch(id)) {
+            return;
+        }
+        markReady(id);
+        JobTask task = new JobTask(this, id, priorities == null ? 0 : priorities.get(id));
+        String groupName = getJob(id).getConcurrencyGroup();
+        if (groupName != null) {
+            // Waits in the group's queue; the group calls startTask once it admits the job
+            scheduler.getConcurrencyGroup(groupName).submit(task, scheduler.getTimer());
+        } else {
+            startTask(task);
+        }
+    }
+
+    /**
+     * Hand a task to the executor, through the resource pool if its job declares a demand
+     *
+     * @param task the task of a ready job, admitted by its concurrency group if it has one
+     */
+    void startTask(JobTask task) {
+        ResourceDemand demand = resourcePool != null ? getJob(task.getId()).getResourceDemand() : null;
+        if (demand != null) {
+            task.holdResources(resourcePool, demand);
+            resourcePool.submit(task, demand, executor);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Fail a ready job of a lazily created graph that could never start, instead of rejecting the whole run when it
+     * is submitted
+     *
+     * @param id the ID of the Job
+     * @return true if the Job can start
+     */
+    private boolean checkRunnableOnDispatch(int id) {
+        try {
+            checkRunnable(getJob(id));
+            return true;
+        } catch (IllegalArgumentException e) {
+            if (failJob(id, JobStatus.PENDING, JobStatus.FAILED, e)) {
+                jobFailed(id, JobStatus.FAILED, e);
+            }
+            return false;
+        }
+    }
+
+    private boolean needsAdmission(int id) {
+        Job job = getJob(id);
+        return job.getConcurrencyGroup() != null || resourcePool != null && job.getResourceDemand() != null;
+    }
+
+    /**
+     * Hand jobs released together to the executor in batches, at most one per worker and none over the batch size
+     * <p>
+     * An executor of unknown parallelism, such as one thread per task, may run every task at once, so each job then
+     * gets a task of its own.
+     *
+     * @param ready the IDs of the jobs, each already marked ready and needing no admission
+     * @param count the number of IDs in use
+     */
+    private void dispatchBatches(int[] ready, int count) {
+        // Spread over every worker before filling batches up, so a small release still runs in parallel
+        int batchSize = parallelism == 0 ? 1
+                : Math.min(dispatchBatchSize, (count + parallelism - 1) / parallelism);
+        for (int from = 0; from < count; from += batchSize) {
+            executor.execute(new JobBatch(this, ready, from, Math.min(from + batchSize, count)));
+        }
+    }
+
+    /**
+     * Process the job of a task, then every job this thread is handed to run next
+     *
+     * @param task the task of the Job to be processed
+     */
+    void processJob(JobTask task) {
+        int next = processJob(task.getId(), task);
+        while (next >= 0) {
+            next = processJob(next, null);
+        }
+    }
+
+    /**
+     * Process a job of a batch, then every job this thread is handed to run next
+     *
+     * @param id the ID of a job that was released without a task of its own
+     */
+    void processReleasedJob(int id) {
+        int next = processJob(id, null);
+        while (next >= 0) {
+            next = processJob(next, null);
+        }
+    }
+
+    /**
+     * This method is responsible for processing a single job of the run. It runs the job unless it was cancelled
+     * or skipped after being dispatched. If the job succeeds, it decrements the pending-parent counter of every
+     * child and dispatches each child whose counter reaches zero. If it throws, it is scheduled for another attempt
+     * while its retry policy allows, and the failure policy is applied after the last one.
+     *
+     * @param id   the ID of the Job to be processed
+     * @param task the task of the Job, which returns its group slot and resources once the Job no longer runs, or
+     *             null if the Job was released without one
+     * @return the ID of a released child for this thread to process next, or -1
+     */
+    private int processJob(int id, JobTask task) {
+        if (readyJobs != null) {
+            readyJobs.decrementAndGet();
+        }
+        if (resultCache != null && reuseCachedOutcome(id, task)) {
+            return -1;
+        }
+        if (!jobStatuses.compareAndSet(id, JobStatus.PENDING, JobStatus.RUNNING)) {
+            releasePermits(task);
+            return -1; // Cancelled or skipped while queued; already accounted for
+        }
+        int attempt = attempts.incrementAndGet(id);
+        Job job = getJob(id);
+        runningThreads.set(id, Thread.currentThread());
+        long timeoutMs = job.getTimeoutMs() >= 0 ? job.getTimeoutMs() : defaultJobTimeoutMs;
+        ScheduledFuture<?> timeout = timeoutMs > 0
+                ? scheduler.getTimer().schedule(() -> timeOut(id), timeoutMs, TimeUnit.MILLISECONDS)
+                : null;
+        boolean timed = costModel != null || listeners.length > 0;
+        long startTime = timed ? System.nanoTime() : 0;
+        Throwable thrown = null;
+        Object result = null;
+        try {
+            // Re-check now that the thread is visible to cancel() and the timer
+            if (jobStatuses.get(id) == JobStatus.RUNNING) {
+                result = execute(id, job);
+                if (costModel != null) {
+                    costModel.record(job, System.nanoTime() - startTime);
+                }
+            }
+        } catch (Throwable t) {
+            thrown = t;
+        } finally {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            runningThreads.set(id, null);
+            if (jobStatuses.get(id) != JobStatus.RUNNING) {
+                // Wait out a concurrent interrupter so its interrupt cannot leak into the next task on this thread
+                synchronized (this) {
+                    Thread.interrupted();
+                }
+            }
+            // Returned before the outcome is accounted for, so the resources are free once the run is done
+            releasePermits(task);
+        }
+        long runNanos = timed ? System.nanoTime() - startTime : 0;
+
+        // Each outcome is reported before it is accounted for, so listeners see every job before the run finishes
+        if (thrown != null) {
+            clearResult(id);
+            RetryPolicy retryPolicy = job.getRetryPolicy();
+            if (retryPolicy != null && attempt < retryPolicy.getMaxAttempts()
+                    && jobStatuses.compareAndSet(id, JobStatus.RUNNING, JobStatus.PENDING)) {
+                reportJob(id, JobStatus.PENDING, startTime, runNanos);
+                retry(id, retryPolicy.getBackoffMs(attempt, ThreadLocalRandom.current()));
+                return -1;
+            }
+            // A job that throws after being timed out or cancelled was most likely reacting to the interrupt
+            if (failJob(id, JobStatus.RUNNING, JobStatus.FAILED, thrown)) {
+                reportJob(id, JobStatus.FAILED, startTime, runNanos);
+                jobFailed(id, JobStatus.FAILED, thrown);
+            } else {
+                reportJob(id, jobStatuses.get(id), startTime, runNanos);
+            }
+        } else if (jobStatuses.compareAndSet(id, JobStatus.RUNNING, JobStatus.SUCCEEDED)) {
+            reportJob(id, JobStatus.SUCCEEDED, startTime, runNanos);
+            if (resultCache != null && cacheKeys.get(id) != null) {
+                // Not read back from the slot, which holds no result if every child finished without reading it
+                resultCache.put(job, cacheKeys.get(id), result);
+            }
+            if (journal != null) {
+                // Recorded before the children are released, so the journal never lists a child before its parent
+                journal.record(job);
+            }
+            completeJob(id, JobStatus.SUCCEEDED);
+            return releaseChildren(id, dispatchBatchSize > 0);
+        } else {
+            // Timed out or cancelled while running, so no child will read the result
+            clearResult(id);
+            reportJob(id, jobStatuses.get(id), startTime, runNanos);
+        }
+        return -1;
+    }
+
+    private static void releasePermits(JobTask task) {
+        if (task != null) {
+            task.releasePermits();
+        }
+    }
+
+    /**
+     * Mark a job CACHED instead of running it, if its cache key has a cached outcome
+     *
+     * @param id   the ID of the Job
+     * @param task the task of the Job, which returns its group slot and resources if the Job is not run, or null
+     * @return true if the Job needs no further processing
+     */
+    private boolean reuseCachedOutcome(int id, JobTask task) {
+        Job job = getJob(id);
+        String key = cacheKey(id);
+        // Kept for storing the outcome if the Job runs
+        cacheKeys.set(id, key);
+        if (key == null) {
+            return false;
+        }
+        Object cached = resultCache.get(job, key);
+        if (cached == ResultCache.MISS) {
+            return false;
+        }
+        releasePermits(task);
+        // Set before the status, so a future completed on seeing CACHED finds the result
+        storeResult(id, cached);
+        if (!jobStatuses.compareAndSet(id, JobStatus.PENDING, JobStatus.CACHED)) {
+            clearResult(id);
+            return true; // Cancelled or skipped while queued; already accounted for
+        }
+        if (journal != null) {
+            journal.record(job);
+        }
+        completeJob(id, JobStatus.CACHED);
+        releaseChildren(id, false);
+        return true;
+    }
+
+    /**
+     * Derive the key a job's outcome is cached under from its input fingerprint and the keys of its parents
+     * <p>
+     * Each parent's key covers the parent's own parents, so the key changes when the fingerprint of any ancestor
+     * does. An outcome computed from older inputs further up is therefore never reused, even if the jobs in between
+     * did not finish in the run where those inputs changed. A job without a fingerprint, or with a parent without a
+     * key, has no key, since what it reads is not known.
+     *
+     * @param id the ID of the Job, whose parents have all finished
+     * @return the key, or null if the Job's outcome is not cached
+     */
+    private String cacheKey(int id) {
+        String fingerprint = getJob(id).getInputFingerprint();
+        int[] parentIds = neighbours(id, false);
+        if (fingerprint == null || parentIds.length == 0) {
+            return fingerprint;
+        }
+        String[] parentKeys = new String[parentIds.length];
+        for (int i = 0; i < parentIds.length; i++) {
+            parentKeys[i] = cacheKeys.get(parentIds[i]);
+            if (parentKeys[i] == null) {
+                return null;
+            }
+        }
+        // Sorted, so the key does not depend on the order the parents were declared in
+        Arrays.sort(parentKeys);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        // Each part is preceded by its length, so no two lists of parts hash the same input
+        for (int i = -1; i < parentKeys.length; i++) {
+            byte[] bytes = (i < 0 ? fingerprint : parentKeys[i]).getBytes(StandardCharsets.UTF_8);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void reportJob(int id, JobStatus status, long startTime, long runNanos) {
+        if (listeners.length == 0) {
+            return;
+        }
+        jobRunNanos.add(id, runNanos);
+        long releasedAt = readyNanos.get(id);
+        for (SchedulerListener listener : listeners) {
+            listener.onJobExecuted(this, getJob(id), status, releasedAt - submittedNanos,
+                    startTime - releasedAt, runNanos);
+        }
+    }
+
+    /**
+     * Dispatch a job again once its backoff has passed; the timer holds it meanwhile, not a worker
+     * <p>
+     * The job waits as PENDING, so cancelling the run during the backoff cancels it, and the re-dispatched task
+     * then finds it no longer pending and returns.
+     *
+     * @param id        the ID of the Job
+     * @param backoffMs the delay before the next attempt in milliseconds
+     */
+    private void retry(int id, long backoffMs) {
+        if (backoffMs > 0) {
+            scheduler.getTimer().schedule(() -> dispatch(id), backoffMs, TimeUnit.MILLISECONDS);
+        } else {
+            dispatch(id);
+        }
+    }
+
+    /**
+     * Run a job's attempt, storing its result if it is a {@link ResultJob}
+     *
+     * @param id  the ID of the Job
+     * @param job the Job
+     * @return the result of the Job, or null for a Job without a result
+     */
+    private Object execute(int id, Job job) {
+        if (job instanceof ResultJob) {
+            Object result = ((ResultJob<?>) job).compute(new ParentResults(id));
+            storeResult(id, result);
+            return result;
+        }
+        job.run();
+        return null;
+    }
+
+    /**
+     * Count down the parents of a finished job's children, and dispatch each child that has none left
+     * <p>
+     * With batched dispatch, the released children of the compiled graph that need no admission are not dispatched
+     * one by one: the first is handed back to run next on this thread, and the others go to the executor in batches.
+     *
+     * @param id          the ID of the Job that finished
+     * @param runNextHere whether a released child may be handed back instead of dispatched
+     * @return the ID of the child for this thread to process next, or -1
+     */
+    private int releaseChildren(int id, boolean runNextHere) {
+        int next = -1;
+        int[] ready = null;
+        int readyCount = 0;
+        if (id < graph.size()) {
+            int end = graph.getChildEnd(id);
+            for (int e = graph.getChildStart(id); e < end; e++) {
+                int childId = graph.getChild(e);
+                // Exactly one parent observes the last count, so each child is released once
+                if (pendingParents.decrementAndGet(childId) != 0 || jobStatuses.get(childId) != JobStatus.PENDING) {
+                    continue;
+                }
+                if (!runNextHere || needsAdmission(childId)) {
+                    dispatch(childId);
+                    continue;
+                }
+                markReady(childId);
+                if (next < 0) {
+                    next = childId;
+                } else {
+                    if (ready == null) {
+                        ready = new int[end - e];
+                    }
+                    ready[readyCount++] = childId;
+                }
+            }
+        }
+        for (AddedEdge child = addedChildrenOf(id); child != null; child = child.next) {
+            // The adder may have found this job finished too; whoever claims the edge releases it
+            if (child.claim()) {
+                parentSucceeded(child.id);
+            }
+        }
+        if (readyCount > 0) {
+            dispatchBatches(ready, readyCount);
+        }
+        return next;
+    }
+
+    /**
+     * Account for an added parent of a job having finished successfully, and dispatch the job if it was the last
+     *
+     * @param childId the ID of the Job
+     */
+    private void parentSucceeded(int childId) {
+        // Exactly one parent observes the transition to zero, so each child is released once
+        if (pendingParents.decrementAndGet(childId) == 0 && jobStatuses.get(childId) == JobStatus.PENDING) {
+            dispatch(childId);
+        }
+    }
+
+    /**
+     * Called by the timer when a job passes its timeout: interrupt it, then apply the failure policy right away
+     *
+     * @param id the ID of the Job that timed out
+     */
+    private void timeOut(int id) {
+        TimeoutException timeout = new TimeoutException(getJob(id).getName() + " exceeded its timeout");
+        synchronized (this) {
+            if (!failJob(id, JobStatus.RUNNING, JobStatus.TIMED_OUT, timeout)) {
+                return; // Finished or cancelled in the meantime
+            }
+            interrupt(id);
+        }
+        jobFailed(id, JobStatus.TIMED_OUT, timeout);
+    }
+
+    /**
+     * Move a job to FAILED or TIMED_OUT, publishing the cause before the status so no reader sees the status
+     * without it
+     * <p>
+     * The worker and the timer race to account for the same job. Both publish under the run's lock, so the cause
+     * of the side that loses never replaces or removes the winner's.
+     *
+     * @param id       the ID of the Job
+     * @param expected the status the Job must still have
+     * @param status   FAILED or TIMED_OUT
+     * @param cause    the reason the Job did not succeed
+     * @return true if this call moved the Job, false if it had already left the expected status
+     */
+    private synchronized boolean failJob(int id, JobStatus expected, JobStatus status, Throwable cause) {
+        failures.putIfAbsent(id, cause);
+        if (jobStatuses.compareAndSet(id, expected, status)) {
+            return true;
+        }
+        failures.remove(id, cause);
+        return false;
+    }
+
+    /**
+     * Account for a job that failed or timed out, then cancel the run or skip the job's descendants
+     *
+     * @param id     the ID of the Job
+     * @param status FAILED or TIMED_OUT
+     * @param cause  the reason the Job did not succeed
+     */
+    private void jobFailed(int id, JobStatus status, Throwable cause) {
+        recordFailure(cause);
+        if (failurePolicy == FailurePolicy.FAIL_FAST) {
+            cancel();
+        } else {
+            skipDescendants(id);
+        }
+        completeJob(id, status);
+    }
+
+    /**
+     * Called by the timer when the run passes its deadline
+     */
+    private void deadlineExceeded() {
+        recordFailure(new TimeoutException("Run exceeded its deadline"));
+        cancel();
+    }
+
+    private synchronized void recordFailure(Throwable cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+    }
+
+    /**
+     * Mark every pending descendant of a job SKIPPED, walking the graph with an explicit stack
+     *
+     * @param id the ID of the Job whose descendants can no longer run
+     */
+    private void skipDescendants(int id) {
+        int[] stack = new int[8];
+        int size = 0;
+        stack[size++] = id;
+        while (size > 0) {
+            int current = stack[--size];
+            int staticChildren = current < graph.size() ? graph.getChildEnd(current) - graph.getChildStart(current) : 0;
+            AddedEdge added = addedChildrenOf(current);
+            for (int i = 0; i < staticChildren || added != null; i++) {
+                int childId;
+                if (i < staticChildren) {
+                    childId = graph.getChild(graph.getChildStart(current) + i);
+                } else {
+                    childId = added.id;
+                    added = added.next;
+                }
+                // A child that is no longer pending was reached through another path, or cancelled with the run
+                if (jobStatuses.compareAndSet(childId, JobStatus.PENDING, JobStatus.SKIPPED)) {
+                    completeJob(childId, JobStatus.SKIPPED);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = childId;
+                }
+            }
+        }
+    }
+
+    /**
+     * Interrupt the thread running a job; callers hold the lock of this run
+     *
+     * @param id the ID of the Job
+     */
+    private void interrupt(int id) {
+        Thread thread = runningThreads.get(id);
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Account for a job that reached a terminal status: complete its future, release its parents' results and
+     * finish the run after the last job
+     *
+     * @param id     the ID of the Job
+     * @param status the terminal status the caller moved the Job to
+     */
+    private void completeJob(int id, JobStatus status) {
+        CompletableFuture<Object> future = jobFutures.get(id);
+        if (future != null) {
+            completeJobFuture(id, future, status);
+        }
+
+        // This job has read its parents' results; drop each one that no other child still needs
+        if (id < graph.size()) {
+            for (int e = graph.getParentStart(id); e < graph.getParentEnd(id); e++) {
+                releaseResult(graph.getParent(e));
+            }
+        }
+        for (AddedEdge parent = addedParentsOf(id); parent != null; parent = parent.next) {
+            releaseResult(parent.id);
+        }
+
+        if (remainingJobs.decrementAndGet() == 0) {
+            finish();
+        }
+    }
+
+    private void completeJobFuture(int id, CompletableFuture<Object> future, JobStatus status) {
+        if (status.isSuccessful()) {
+            Object result = results.get(id);
+            if (result == RELEASED) {
+                future.completeExceptionally(new IllegalStateException(getJob(id).getName()
+                        + " result was released after its children read it"));
+            } else {
+                future.complete(result);
+            }
+        } else if (status == JobStatus.FAILED || status == JobStatus.TIMED_OUT) {
+            future.completeExceptionally(failures.get(id));
+        } else if (status.isTerminal()) {
+            future.completeExceptionally(new CancellationException(getJob(id).getName() + " was "
+                    + (status == JobStatus.SKIPPED ? "skipped" : "cancelled")));
+        }
+    }
+
+    /**
+     * A dependency added while the run is in progress, as a node of a job's list of added children or parents
+     */
+    private static final class AddedEdge {
+        private final int id;
+        private final AddedEdge next;
+        // Set by whoever accounts for the parent's success: the finishing parent, or an adder that found it finished
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        AddedEdge(int id, AddedEdge next) {
+            this.id = id;
+            this.next = next;
+        }
+
+        boolean claim() {
+            return !claimed.get() && claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * The results of one job's parents, read straight from the run's result slots
+     */
+    private class ParentResults implements JobInputs {
+        private final int id;
+
+        ParentResults(int id) {
+            this.id = id;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(ResultJob<T> parentJob) {
+            int parentId = findId(parentJob);
+            if (id < graph.size()) {
+                for (int e = graph.getParentStart(id); e < graph.getParentEnd(id); e++) {
+                    if (graph.getParent(e) == parentId) {
+                        return (T) results.get(parentId);
+                    }
+                }
+            }
+            for (AddedEdge parent = addedParentsOf(id); parent != null; parent = parent.next) {
+                if (parent.id == parentId) {
+                    return (T) results.get(parentId);
+                }
+            }
+            throw new IllegalArgumentException(parentJob.getName() + " is not a parent of "
+                    + getJob(id).getName());
+        }
+    }
+
+    /**
+     * Getter method for a Job of the run, including the jobs added to it
+     *
+     * @param id the ID of the Job
+     * @return the Job
+     */
+    Job getJob(int id) {
+        return id < graph.size() ? graph.getJob(id) : addedJobs.get(id - graph.size());
+    }
+
+    /**
+     * Getter method for the ID of a Job of the run, including the jobs added to it
+     *
+     * @param job the Job
+     * @return the ID of the Job, or -1 if the Job is not part of the run
+     */
+    int findId(Job job) {
+        int id = graph.getId(job);
+        if (id >= 0) {
+            return id;
+        }
+        Integer added = addedIds.get(job);
+        return added == null ? -1 : added;
+    }
+
+    private int requireId(Job job) {
+        int id = findId(job);
+        if (id < 0) {
+            throw new IllegalArgumentException(job.getName() + " is not part of this run");
+        }
+        return id;
+    }
+
+    private void reportRun() {
+        long wallNanos = System.nanoTime() - submittedNanos;
+        long busyNanos = 0;
+        for (int id = 0; id < jobCount; id++) {
+            busyNanos += jobRunNanos.get(id);
+        }
+        // The longest chain of the compiled graph starts at a root, and IDs below the root count are the roots
+        long[] pathNanos = graph.computeCriticalPathLengths(jobRunNanos.baseArray());
+        long criticalPathNanos = 0;
+        for (int id = 0; id < graph.getRootCount(); id++) {
+            criticalPathNanos = Math.max(criticalPathNanos, pathNanos[id]);
+        }
+        RunMetrics metrics = new RunMetrics(this, wallNanos, busyNanos, criticalPathNanos, maxReadyJobs.get(),
+                scheduler.getParallelism());
+        for (SchedulerListener listener : listeners) {
+            listener.onRunFinished(metrics);
+        }
+    }
+
+    private void finish() {
+        ScheduledFuture<?> runDeadline = deadline;
+        if (runDeadline != null) {
+            runDeadline.cancel(false);
+        }
+        scheduler.runFinished(this);
+        if (listeners.length > 0) {
+            reportRun();
+        }
+        if (failure != null) {
+            completionFuture.completeExceptionally(failure);
+        } else if (cancelled) {
+            completionFuture.completeExceptionally(new CancellationException("Run was cancelled"));
+        } else {
+            completionFuture.complete(null);
+        }
+    }
+}
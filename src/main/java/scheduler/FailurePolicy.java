@@ -0,0 +1,15 @@
+package scheduler;
+
+/**
+ * What a {@link DagRun} does with the rest of the graph when a job fails or exceeds its timeout.
+ */
+public enum FailurePolicy {
+    /**
+     * Cancel every job that has not finished yet, interrupting the running ones
+     */
+    FAIL_FAST,
+    /**
+     * Skip only the descendants of the failed job and keep running the independent branches
+     */
+    CONTINUE_ON_ERROR
+}
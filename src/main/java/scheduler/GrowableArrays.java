@@ -0,0 +1,192 @@
+package scheduler;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-job arrays of a {@link DagRun} that grow as jobs are added to the run while it is in progress.
+ * <p>
+ * The jobs of the compiled graph live in one flat base array, so they cost a single extra comparison over a plain
+ * array. Added jobs live in fixed-size chunks behind it. Chunks are never moved or copied, so growing loses no
+ * concurrent update and readers take no lock. Only {@link Chunks#ensureCapacity(int)} is synchronized; the run
+ * calls it before handing out an ID and publishes the ID through a volatile write, so whoever reads the ID also
+ * sees its chunk.
+ */
+final class GrowableArrays {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private GrowableArrays() {
+    }
+
+    /**
+     * The chunk directory shared by the array kinds
+     *
+     * @param <C> the type of a chunk
+     */
+    abstract static class Chunks<C> {
+        final int baseLength;
+        private volatile Object[] chunks = new Object[0];
+
+        Chunks(int baseLength) {
+            this.baseLength = baseLength;
+        }
+
+        abstract C newChunk(int length);
+
+        /**
+         * Make room for the indices below a length
+         *
+         * @param length the number of indices needed
+         */
+        synchronized void ensureCapacity(int length) {
+            Object[] current = chunks;
+            int capacity = baseLength + current.length * CHUNK_SIZE;
+            if (length <= capacity) {
+                return;
+            }
+            int chunkCount = (length - baseLength + CHUNK_MASK) >>> CHUNK_BITS;
+            Object[] grown = Arrays.copyOf(current, chunkCount);
+            for (int i = current.length; i < chunkCount; i++) {
+                grown[i] = newChunk(CHUNK_SIZE);
+            }
+            chunks = grown;
+        }
+
+        @SuppressWarnings("unchecked")
+        final C chunk(int index) {
+            return (C) chunks[(index - baseLength) >>> CHUNK_BITS];
+        }
+
+        final int offset(int index) {
+            return (index - baseLength) & CHUNK_MASK;
+        }
+    }
+
+    /**
+     * A growable {@link AtomicIntegerArray}
+     */
+    static final class Ints extends Chunks<AtomicIntegerArray> {
+        private final AtomicIntegerArray base;
+
+        Ints(int baseLength) {
+            super(baseLength);
+            this.base = new AtomicIntegerArray(baseLength);
+        }
+
+        @Override
+        AtomicIntegerArray newChunk(int length) {
+            return new AtomicIntegerArray(length);
+        }
+
+        int get(int i) {
+            return i < baseLength ? base.get(i) : chunk(i).get(offset(i));
+        }
+
+        void set(int i, int value) {
+            if (i < baseLength) {
+                base.set(i, value);
+            } else {
+                chunk(i).set(offset(i), value);
+            }
+        }
+
+        boolean compareAndSet(int i, int expected, int value) {
+            return i < baseLength ? base.compareAndSet(i, expected, value)
+                    : chunk(i).compareAndSet(offset(i), expected, value);
+        }
+
+        int incrementAndGet(int i) {
+            return i < baseLength ? base.incrementAndGet(i) : chunk(i).incrementAndGet(offset(i));
+        }
+
+        int decrementAndGet(int i) {
+            return i < baseLength ? base.decrementAndGet(i) : chunk(i).decrementAndGet(offset(i));
+        }
+    }
+
+    /**
+     * A growable long array without atomic updates, for values handed between threads by the executor
+     */
+    static final class Longs extends Chunks<long[]> {
+        private final long[] base;
+
+        Longs(long[] base) {
+            super(base.length);
+            this.base = base;
+        }
+
+        @Override
+        long[] newChunk(int length) {
+            return new long[length];
+        }
+
+        long get(int i) {
+            return i < baseLength ? base[i] : chunk(i)[offset(i)];
+        }
+
+        void set(int i, long value) {
+            if (i < baseLength) {
+                base[i] = value;
+            } else {
+                chunk(i)[offset(i)] = value;
+            }
+        }
+
+        void add(int i, long delta) {
+            set(i, get(i) + delta);
+        }
+
+        /**
+         * Getter method for the base array, which is not copied
+         *
+         * @return the values below the base length
+         */
+        long[] baseArray() {
+            return base;
+        }
+    }
+
+    /**
+     * A growable {@link AtomicReferenceArray}
+     *
+     * @param <E> the type of the elements
+     */
+    static final class References<E> extends Chunks<AtomicReferenceArray<E>> {
+        private final AtomicReferenceArray<E> base;
+
+        References(int baseLength) {
+            super(baseLength);
+            this.base = new AtomicReferenceArray<>(baseLength);
+        }
+
+        @Override
+        AtomicReferenceArray<E> newChunk(int length) {
+            return new AtomicReferenceArray<>(length);
+        }
+
+        E get(int i) {
+            return i < baseLength ? base.get(i) : chunk(i).get(offset(i));
+        }
+
+        void set(int i, E value) {
+            if (i < baseLength) {
+                base.set(i, value);
+            } else {
+                chunk(i).set(offset(i), value);
+            }
+        }
+
+        boolean compareAndSet(int i, E expected, E value) {
+            return i < baseLength ? base.compareAndSet(i, expected, value)
+                    : chunk(i).compareAndSet(offset(i), expected, value);
+        }
+
+        E compareAndExchange(int i, E expected, E value) {
+            return i < baseLength ? base.compareAndExchange(i, expected, value)
+                    : chunk(i).compareAndExchange(offset(i), expected, value);
+        }
+    }
+}
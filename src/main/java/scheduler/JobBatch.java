@@ -0,0 +1,37 @@
+package scheduler;
+
+/**
+ * The unit handed to the executor for several ready jobs of a run when dispatch is batched.
+ * <p>
+ * The jobs were released together and need no admission by a concurrency group or resource pool, so one task runs
+ * them one after the other on the worker that picks it up. Batches of the same release share one array of IDs, each
+ * covering its own range of it.
+ */
+final class JobBatch implements Runnable {
+    private final DagRun run;
+    private final int[] ids;
+    private final int from;
+    private final int to;
+
+    /**
+     * Constructor for the JobBatch class
+     *
+     * @param run  the run the jobs belong to
+     * @param ids  the IDs of the released jobs, not modified once the batch is handed to the executor
+     * @param from the index of the first ID of the batch
+     * @param to   the index after the last ID of the batch
+     */
+    JobBatch(DagRun run, int[] ids, int from, int to) {
+        this.run = run;
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public void run() {
+        for (int i = from; i < to; i++) {
+            run.processReleasedJob(ids[i]);
+        }
+    }
+}
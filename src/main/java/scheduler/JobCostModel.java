@@ -0,0 +1,59 @@
+package scheduler;
+
+import models.Job;
+import models.JobGraph;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates job run times from declared costs and from the run times observed in earlier runs.
+ * <p>
+ * Observations are keyed by job name, so they carry over to Job objects rebuilt for later runs, and are smoothed
+ * with an exponential moving average.
+ */
+class JobCostModel {
+    private final ConcurrentHashMap<String, Long> observedNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Estimate the cost of every job of a graph
+     * <p>
+     * A declared cost wins over an observed one. Jobs with neither get the average of the known costs, or 1 if
+     * nothing is known, which makes the critical path the longest chain of jobs.
+     *
+     * @param graph the compiled graph
+     * @return the estimated cost of each job in nanoseconds, indexed by ID
+     */
+    long[] estimateCosts(JobGraph graph) {
+        long[] costs = new long[graph.size()];
+        long knownTotal = 0;
+        int knownCount = 0;
+        for (int id = 0; id < graph.size(); id++) {
+            Job job = graph.getJob(id);
+            long declaredMs = job.getEstimatedCostMs();
+            Long observed = declaredMs >= 0 ? null : observedNanos.get(job.getName());
+            costs[id] = declaredMs >= 0 ? TimeUnit.MILLISECONDS.toNanos(declaredMs) : observed != null ? observed : -1;
+            if (costs[id] >= 0) {
+                knownTotal += costs[id];
+                knownCount++;
+            }
+        }
+        long fallback = knownCount == 0 ? 1 : Math.max(1, knownTotal / knownCount);
+        for (int id = 0; id < costs.length; id++) {
+            if (costs[id] < 0) {
+                costs[id] = fallback;
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Record the observed run time of a job
+     *
+     * @param job         the Job that ran
+     * @param elapsedNanos how long it ran
+     */
+    void record(Job job, long elapsedNanos) {
+        observedNanos.merge(job.getName(), elapsedNanos, (previous, latest) -> (previous * 3 + latest) / 4);
+    }
+}
@@ -0,0 +1,61 @@
+package scheduler;
+
+/**
+ * The state of a single job within one {@link DagRun}.
+ */
+public enum JobStatus {
+    /**
+     * Waiting for its parents or for a worker
+     */
+    PENDING,
+    /**
+     * Currently executing on a worker
+     */
+    RUNNING,
+    /**
+     * Ran to completion
+     */
+    SUCCEEDED,
+    /**
+     * Not run because its input fingerprint matched a cached successful run and no ancestor had to run
+     */
+    CACHED,
+    /**
+     * Not run because the run's journal recorded that it finished before the run was interrupted
+     */
+    RESTORED,
+    /**
+     * Threw an exception
+     */
+    FAILED,
+    /**
+     * Interrupted because it ran past its timeout
+     */
+    TIMED_OUT,
+    /**
+     * Never started because an ancestor did not succeed
+     */
+    SKIPPED,
+    /**
+     * Interrupted or never started because the run was cancelled
+     */
+    CANCELLED;
+
+    /**
+     * Check whether the job will not change state again within its run
+     *
+     * @return true for every state except PENDING and RUNNING
+     */
+    public boolean isTerminal() {
+        return this != PENDING && this != RUNNING;
+    }
+
+    /**
+     * Check whether the job's children may run: it either ran successfully or its outcome was reused
+     *
+     * @return true for SUCCEEDED, CACHED and RESTORED
+     */
+    public boolean isSuccessful() {
+        return this == SUCCEEDED || this == CACHED || this == RESTORED;
+    }
+}
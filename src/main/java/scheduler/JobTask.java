@@ -0,0 +1,76 @@
+package scheduler;
+
+import models.ResourceDemand;
+
+/**
+ * The unit handed to the executor for one job of a run.
+ * <p>
+ * Tasks are ordered by priority, highest first, and then by job ID, so an executor backed by a
+ * {@link java.util.concurrent.PriorityBlockingQueue} picks the ready job with the longest remaining critical path.
+ * On its way to the executor a task may be admitted by a {@link ConcurrencyGroup} and a {@link ResourcePool}; it
+ * remembers what they granted, and its run returns both once the attempt ends.
+ */
+final class JobTask implements Runnable, Comparable<JobTask> {
+    private final DagRun run;
+    private final int id;
+    private final long priority;
+    // Set before the task is handed to the executor, which publishes them to the worker
+    private ConcurrencyGroup group;
+    private ResourcePool resourcePool;
+    private ResourceDemand heldResources;
+
+    JobTask(DagRun run, int id, long priority) {
+        this.run = run;
+        this.id = id;
+        this.priority = priority;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Called by the task's concurrency group when it lets the task in; passes the task on towards the executor
+     *
+     * @param admittingGroup the group whose slot the task now holds
+     */
+    void admit(ConcurrencyGroup admittingGroup) {
+        this.group = admittingGroup;
+        run.startTask(this);
+    }
+
+    /**
+     * Record the resources the task will hold once its resource pool starts it
+     *
+     * @param pool   the pool
+     * @param demand the resources of the job
+     */
+    void holdResources(ResourcePool pool, ResourceDemand demand) {
+        this.resourcePool = pool;
+        this.heldResources = demand;
+    }
+
+    /**
+     * Return the group slot and resources the task holds; called once per task, when its attempt ends or it is
+     * found not to need running
+     */
+    void releasePermits() {
+        if (resourcePool != null) {
+            resourcePool.release(heldResources);
+        }
+        if (group != null) {
+            group.release();
+        }
+    }
+
+    @Override
+    public void run() {
+        run.processJob(this);
+    }
+
+    @Override
+    public int compareTo(JobTask other) {
+        int byPriority = Long.compare(other.priority, priority);
+        return byPriority != 0 ? byPriority : Integer.compare(id, other.id);
+    }
+}
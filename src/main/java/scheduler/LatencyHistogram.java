@@ -0,0 +1,132 @@
+package scheduler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative values, such as latencies in nanoseconds, in the style of HdrHistogram.
+ * <p>
+ * Buckets are log-linear: each power of two is split into 32 equal sub-buckets, so every recorded value is kept
+ * with a relative error below 1/32 (about 3%) across the whole {@code long} range. Recording is a few shifts and one
+ * atomic increment, with no allocation and no lock, so it is safe on the scheduler's hot path. The fixed 1,888
+ * buckets take about 15 KB.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+
+    /**
+     * Record one value
+     *
+     * @param value the value; negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalValue.add(value);
+    }
+
+    /**
+     * Getter method for the number of recorded values
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Getter method for the mean of the recorded values
+     *
+     * @return the exact mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * Getter method for the value at a percentile
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the highest value equivalent (within the histogram's precision) to the value at the percentile, or 0
+     * if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Getter method for the largest recorded value
+     *
+     * @return the highest value equivalent to the largest recorded value, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return highestValueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forget every recorded value
+     * <p>
+     * Values recorded concurrently with a reset may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalValue.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0f p50=%d p90=%d p99=%d max=%d", getCount(), getMean(),
+                getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99), getMax());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // The top SUB_BUCKET_BITS + 1 bits of the value pick the bucket; the rest is the precision given up
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket - SUB_BUCKET_COUNT;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        // For the last bucket the shift wraps to Long.MIN_VALUE, so subtracting 1 gives Long.MAX_VALUE
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,136 @@
+package scheduler;
+
+import models.Job;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SchedulerListener} that aggregates the measurements of every run into counters and latency histograms.
+ * <p>
+ * Counters are {@link LongAdder}s and histograms are {@link LatencyHistogram}s, so concurrent workers do not
+ * contend on a shared field. Read the values at any time, for example from a periodic exporter.
+ */
+public class MetricsRecorder implements SchedulerListener {
+    private final LongAdder jobAttempts = new LongAdder();
+    private final LongAdder jobsSucceeded = new LongAdder();
+    private final LongAdder jobsFailed = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LatencyHistogram queueWaitNanos = new LatencyHistogram();
+    private final LatencyHistogram jobRunNanos = new LatencyHistogram();
+    private final LatencyHistogram runWallNanos = new LatencyHistogram();
+    private final LatencyHistogram runCriticalPathNanos = new LatencyHistogram();
+    private final LatencyHistogram readyQueueDepth = new LatencyHistogram();
+
+    @Override
+    public void onJobExecuted(DagRun run, Job job, JobStatus status, long releasedAtNanos, long queueWaitNanos,
+                              long runNanos) {
+        jobAttempts.increment();
+        if (status == JobStatus.SUCCEEDED) {
+            jobsSucceeded.increment();
+        } else if (status == JobStatus.FAILED || status == JobStatus.TIMED_OUT) {
+            jobsFailed.increment();
+        }
+        this.queueWaitNanos.record(queueWaitNanos);
+        jobRunNanos.record(runNanos);
+    }
+
+    @Override
+    public void onRunFinished(RunMetrics metrics) {
+        runs.increment();
+        runWallNanos.record(metrics.getWallNanos());
+        runCriticalPathNanos.record(metrics.getCriticalPathNanos());
+        readyQueueDepth.record(metrics.getMaxReadyQueueDepth());
+    }
+
+    /**
+     * Getter method for the number of job attempts, including retries
+     *
+     * @return the number of job attempts
+     */
+    public long getJobAttempts() {
+        return jobAttempts.sum();
+    }
+
+    /**
+     * Getter method for the number of jobs that succeeded
+     *
+     * @return the number of successful jobs
+     */
+    public long getJobsSucceeded() {
+        return jobsSucceeded.sum();
+    }
+
+    /**
+     * Getter method for the number of jobs that failed or timed out after their last attempt
+     *
+     * @return the number of failed jobs
+     */
+    public long getJobsFailed() {
+        return jobsFailed.sum();
+    }
+
+    /**
+     * Getter method for the number of finished runs
+     *
+     * @return the number of finished runs
+     */
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * Getter method for the time jobs waited between becoming ready and starting
+     *
+     * @return the histogram of queue-wait times in nanoseconds
+     */
+    public LatencyHistogram getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    /**
+     * Getter method for the run time of job attempts
+     *
+     * @return the histogram of job run times in nanoseconds
+     */
+    public LatencyHistogram getJobRunNanos() {
+        return jobRunNanos;
+    }
+
+    /**
+     * Getter method for the wall-clock time of runs
+     *
+     * @return the histogram of run wall times in nanoseconds
+     */
+    public LatencyHistogram getRunWallNanos() {
+        return runWallNanos;
+    }
+
+    /**
+     * Getter method for the critical-path time of runs
+     *
+     * @return the histogram of run critical-path times in nanoseconds
+     */
+    public LatencyHistogram getRunCriticalPathNanos() {
+        return runCriticalPathNanos;
+    }
+
+    /**
+     * Getter method for the largest ready-queue depth of runs
+     *
+     * @return the histogram of the maximum ready-queue depth of each run
+     */
+    public LatencyHistogram getReadyQueueDepth() {
+        return readyQueueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "runs=" + getRuns() + " jobAttempts=" + getJobAttempts() + " succeeded=" + getJobsSucceeded()
+                + " failed=" + getJobsFailed() + System.lineSeparator()
+                + "queueWaitNanos: " + queueWaitNanos + System.lineSeparator()
+                + "jobRunNanos: " + jobRunNanos + System.lineSeparator()
+                + "runWallNanos: " + runWallNanos + System.lineSeparator()
+                + "runCriticalPathNanos: " + runCriticalPathNanos + System.lineSeparator()
+                + "readyQueueDepth: " + readyQueueDepth;
+    }
+}
@@ -1,174 +1,558 @@
 package scheduler;
 
 import models.Job;
+import models.JobGraph;
 
-import java.util.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-lived service that runs job DAGs on a shared executor.
+ * <p>
+ * The scheduler either owns its executor, created once and shut down by {@link #close()}, or runs on an executor
+ * injected by the caller, which it never shuts down. An owned executor is a fixed pool of platform threads, or one
+ * virtual thread per job (see {@link #withVirtualThreads(int)}) for jobs that mostly block on I/O, or a fixed pool
+ * that picks ready jobs by critical path (see {@link #withCriticalPathPriority(int)}), or a work-stealing pool for
+ * DAGs of many tiny jobs (see {@link #withWorkStealing(int)}). Any number of DAG runs can be submitted over its
+ * lifetime, and concurrent runs share the same workers.
+ * <p>
+ * Runs can be bounded by a deadline ({@link #setRunTimeoutMs(long)}) and jobs by a timeout
+ * ({@link #setJobTimeoutMs(long)} or {@link Job#setTimeoutMs(long)}). Both are enforced by a single timer thread
+ * owned by the scheduler, so no worker waits on a clock. What happens to the rest of a run when a job throws or
+ * times out is set by {@link #setFailurePolicy(FailurePolicy)}. Timing measurements of jobs and runs are reported to
+ * the {@link SchedulerListener}s added with {@link #addListener(SchedulerListener)}, a {@link ResultCache} makes
+ * repeated runs incremental, and a {@link RunJournal} lets a run interrupted by a crash resume where it stopped. A
+ * {@link ResourcePool} starts jobs only when the CPU slots, memory and named tokens they declare are free, and
+ * {@link ConcurrencyGroup}s cap and rate-limit the jobs calling a shared backend.
+ */
+public class ParallelJobScheduler implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Executor dispatchExecutor;
+    private final boolean ownsExecutor;
+    private final JobCostModel costModel;
+    private final int parallelism;
+    private final ScheduledThreadPoolExecutor timer;
+    private final List<SchedulerListener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<DagRun> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Map<String, ConcurrencyGroup> concurrencyGroups = new ConcurrentHashMap<>();
+    private boolean closed;
+    private volatile long runTimeoutMs;
+    private volatile long jobTimeoutMs;
+    private volatile FailurePolicy failurePolicy = FailurePolicy.CONTINUE_ON_ERROR;
+    private volatile ResultCache resultCache;
+    private volatile ResourcePool resourcePool;
+    private volatile int dispatchBatchSize;
 
-public class ParallelJobScheduler {
-    private ExecutorService executor;
-    private final int threadPoolSize;
-    
     public ParallelJobScheduler() {
         this(4);
     }
-    
+
     public ParallelJobScheduler(int threadPoolSize) {
-        this.threadPoolSize = threadPoolSize;
+        this(Executors.newFixedThreadPool(threadPoolSize, new WorkerThreadFactory("worker")), true);
     }
 
     /**
-     * Schedule all jobs in the given list
+     * Constructor for running on an executor managed by the caller; {@link #close()} does not shut it down
      *
-     * @param startingJobs list of starting jobs to be scheduled
+     * @param executor the executor jobs are dispatched to
      */
-    public void scheduleAllJobs(List<Job> startingJobs) {
-        // Create a fixed thread pool
-        executor = Executors.newFixedThreadPool(threadPoolSize);
+    public ParallelJobScheduler(ExecutorService executor) {
+        this(executor, false);
+    }
 
-        // Convert to set for efficient lookups
-        Set<Job> startingJobsSet = new HashSet<>(startingJobs);
-        
-        // Detect cycles before execution
-        if (hasCycle(startingJobsSet)) {
-            throw new IllegalArgumentException("Cycle detected in job dependencies");
-        }
+    private ParallelJobScheduler(ExecutorService executor, boolean ownsExecutor) {
+        this(executor, executor, ownsExecutor, null);
+    }
 
-        // Get all child jobs in order
-        List<Job> allChildrenJobs = getAllChildrenJobsInOrder(startingJobsSet);
+    private ParallelJobScheduler(ExecutorService executor, Executor dispatchExecutor, boolean ownsExecutor,
+                                 JobCostModel costModel) {
+        this.executor = executor;
+        this.dispatchExecutor = dispatchExecutor;
+        this.ownsExecutor = ownsExecutor;
+        this.costModel = costModel;
+        this.parallelism = parallelismOf(dispatchExecutor);
+        // The timer thread is only started once the first timeout or deadline is scheduled
+        this.timer = new ScheduledThreadPoolExecutor(1, new WorkerThreadFactory("timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
 
-        // Submit starting jobs to the thread pool
-        for (Job job : startingJobsSet) {
-            executor.submit(() -> processJob(job));
+    private static int parallelismOf(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        } else if (executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getParallelism();
+        } else if (executor instanceof BoundedExecutor) {
+            return ((BoundedExecutor) executor).getMaxConcurrentJobs();
         }
+        return 0; // Unbounded or unknown
+    }
+
+    /**
+     * Create a scheduler that runs every job on its own virtual thread, with no limit on concurrent jobs
+     * <p>
+     * A job blocked on I/O parks its virtual thread without holding an OS thread, so concurrency follows the width
+     * of the DAG instead of a thread count.
+     *
+     * @return a scheduler backed by {@link Executors#newVirtualThreadPerTaskExecutor()}
+     */
+    public static ParallelJobScheduler withVirtualThreads() {
+        return new ParallelJobScheduler(Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * Create a scheduler that runs every job on its own virtual thread, with at most maxConcurrentJobs running at
+     * once
+     * <p>
+     * Jobs over the limit wait on a semaphore in their (parked, unmounted) virtual thread.
+     *
+     * @param maxConcurrentJobs the maximum number of jobs running at once, across all runs
+     * @return a scheduler backed by {@link Executors#newVirtualThreadPerTaskExecutor()}
+     */
+    public static ParallelJobScheduler withVirtualThreads(int maxConcurrentJobs) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        return new ParallelJobScheduler(executor, new BoundedExecutor(executor, maxConcurrentJobs), true, null);
+    }
+
+    /**
+     * Create a scheduler whose fixed pool runs the ready job with the longest remaining critical path first
+     * <p>
+     * A job's remaining critical path is its own cost plus the longest cost-weighted chain of descendants below it.
+     * Costs come from {@link Job#setEstimatedCostMs(long)} where declared, and otherwise from the run times this
+     * scheduler observed for jobs of the same name in earlier runs. Ready jobs beyond the pool size wait in a
+     * priority queue instead of in submission order, so the longest chain is not held up by leaf work.
+     *
+     * @param threadPoolSize the number of worker threads
+     * @return a scheduler backed by a priority-ordered fixed pool
+     */
+    public static ParallelJobScheduler withCriticalPathPriority(int threadPoolSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L,
+                TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new WorkerThreadFactory("worker"));
+        // Started threads take every task from the queue, so even the first ready jobs are picked by priority
+        executor.prestartAllCoreThreads();
+        return new ParallelJobScheduler(executor, executor, true, new JobCostModel());
+    }
+
+    /**
+     * Create a scheduler that runs jobs on a work-stealing {@link ForkJoinPool}
+     * <p>
+     * Each worker has its own deque. A child released by a finishing job is pushed onto the finishing worker's
+     * deque rather than a shared queue, and that worker takes its newest task first, so the next job of a chain runs
+     * on the cache-warm thread that just produced its input. Idle workers steal the oldest tasks from the other end
+     * of busy workers' deques. This avoids the contention of a single shared queue when jobs are tiny; jobs that
+     * block for long stall their worker's deque, so prefer {@link #withVirtualThreads()} for those.
+     *
+     * @param parallelism the number of worker threads
+     * @return a scheduler backed by a LIFO-mode ForkJoinPool
+     */
+    public static ParallelJobScheduler withWorkStealing(int parallelism) {
+        ForkJoinPool executor = new ForkJoinPool(parallelism, new WorkerThreadFactory("worker"), null, false);
+        return new ParallelJobScheduler(executor, true);
+    }
 
-        // Submit all children jobs to the thread pool
-        for (Job job : allChildrenJobs) {
-            executor.submit(() -> processJob(job));
+    /**
+     * Set the deadline for each run submitted from now on; a run still going when it expires is cancelled, and its
+     * future completes with a {@link java.util.concurrent.TimeoutException}
+     *
+     * @param runTimeoutMs the deadline in milliseconds, or 0 for none (the default)
+     * @throws IllegalArgumentException if runTimeoutMs is negative
+     */
+    public void setRunTimeoutMs(long runTimeoutMs) {
+        if (runTimeoutMs < 0) {
+            throw new IllegalArgumentException("Run timeout must not be negative: " + runTimeoutMs);
         }
+        this.runTimeoutMs = runTimeoutMs;
+    }
 
-        // Properly shut down the thread pool
-        executor.shutdown();
-        try {
-            // Wait for all tasks to complete or timeout after 60 seconds
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-                // Wait a bit more for tasks to respond to being cancelled
-                if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                    throw new RuntimeException("Pool did not terminate");
-                }
-            }
-        } catch (InterruptedException ie) {
-            // Cancel currently executing tasks
-            executor.shutdownNow();
-            // Preserve interrupt status
-            Thread.currentThread().interrupt();
+    /**
+     * Getter method for the deadline of each run
+     *
+     * @return the deadline in milliseconds, or 0 for none
+     */
+    public long getRunTimeoutMs() {
+        return runTimeoutMs;
+    }
+
+    /**
+     * Set the timeout for jobs that do not declare their own, for each run submitted from now on
+     * <p>
+     * A job still running when its timeout expires is interrupted and marked TIMED_OUT, and its descendants are
+     * skipped right away. Independent branches of the run keep going.
+     *
+     * @param jobTimeoutMs the timeout in milliseconds, or 0 for none (the default)
+     * @throws IllegalArgumentException if jobTimeoutMs is negative
+     */
+    public void setJobTimeoutMs(long jobTimeoutMs) {
+        if (jobTimeoutMs < 0) {
+            throw new IllegalArgumentException("Job timeout must not be negative: " + jobTimeoutMs);
         }
+        this.jobTimeoutMs = jobTimeoutMs;
     }
 
     /**
-     * Check if there is a cycle in the job dependency graph
+     * Getter method for the timeout of jobs that do not declare their own
      *
-     * @param startingJobs set of starting jobs
-     * @return true if cycle exists, false otherwise
+     * @return the timeout in milliseconds, or 0 for none
      */
-    private boolean hasCycle(Set<Job> startingJobs) {
-        Set<Job> visited = new HashSet<>();
-        Set<Job> recursionStack = new HashSet<>();
-        
-        for (Job job : startingJobs) {
-            if (hasCycleDFS(job, visited, recursionStack)) {
-                return true;
-            }
+    public long getJobTimeoutMs() {
+        return jobTimeoutMs;
+    }
+
+    /**
+     * Set what each run submitted from now on does when a job throws or exceeds its timeout
+     *
+     * @param failurePolicy {@link FailurePolicy#FAIL_FAST} to cancel the whole run, or
+     *                      {@link FailurePolicy#CONTINUE_ON_ERROR} (the default) to skip only the job's descendants
+     */
+    public void setFailurePolicy(FailurePolicy failurePolicy) {
+        if (failurePolicy == null) {
+            throw new IllegalArgumentException("Failure policy must not be null");
         }
-        return false;
+        this.failurePolicy = failurePolicy;
     }
-    
+
     /**
-     * DFS helper method for cycle detection
+     * Getter method for the failure policy of new runs
      *
-     * @param job current job
-     * @param visited set of visited jobs
-     * @param recursionStack set of jobs in current recursion stack
-     * @return true if cycle detected, false otherwise
+     * @return the failure policy
      */
-    private boolean hasCycleDFS(Job job, Set<Job> visited, Set<Job> recursionStack) {
-        if (recursionStack.contains(job)) {
-            return true; // Back edge found, cycle detected
+    public FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /**
+     * Enable incremental runs: jobs with an unchanged input fingerprint are not run again
+     * <p>
+     * Every run submitted from now on records successful jobs that declare {@link Job#setInputFingerprint(String)}
+     * in the cache, and skips a job whose fingerprint and whose ancestors' fingerprints all match a cached outcome.
+     * A run then executes only the jobs that changed and their descendants.
+     *
+     * @param resultCache the cache, shared by every run of this scheduler, or null to run every job (the default)
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Getter method for the result cache of new runs
+     *
+     * @return the result cache, or null if incremental runs are disabled
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Limit jobs by the resources they declare in addition to the worker threads
+     * <p>
+     * In every run submitted from now on, a ready job with a {@link Job#setResourceDemand resource demand} starts
+     * only once the pool can hold it, and gives the resources back when its attempt ends. The pool is shared by all
+     * runs of this scheduler. Size the worker threads for the largest number of jobs the pool admits at once.
+     *
+     * @param resourcePool the pool, or null to limit jobs only by the worker threads (the default)
+     */
+    public void setResourcePool(ResourcePool resourcePool) {
+        this.resourcePool = resourcePool;
+    }
+
+    /**
+     * Getter method for the resource pool of new runs
+     *
+     * @return the resource pool, or null if jobs are limited only by the worker threads
+     */
+    public ResourcePool getResourcePool() {
+        return resourcePool;
+    }
+
+    /**
+     * Hand ready jobs to the executor in batches, for DAGs of jobs that take only microseconds
+     * <p>
+     * By default every ready job becomes its own executor task, which costs more than a tiny job itself. With
+     * batching, in every run submitted from now on, the worker that finishes a job keeps one of the children it
+     * released and runs it next, inline, so a straight-line chain runs on one worker without going back through the
+     * executor. The other released children are split into at most one batch per worker thread, of at most
+     * maxBatchSize jobs each, and each batch is a single executor task that runs its jobs one after the other. Jobs
+     * in a concurrency group or with a resource demand are still dispatched one by one, since each needs its own
+     * admission. A batch holds its worker until all its jobs are done, so leave batching off for jobs that block.
+     * On an executor whose parallelism the scheduler cannot tell, such as {@link #withVirtualThreads()}, the other
+     * children are still dispatched one per task, and only the inline successor applies.
+     *
+     * @param maxBatchSize the largest number of jobs in one executor task, or 0 to dispatch every job on its own
+     *                     (the default)
+     * @throws IllegalArgumentException if maxBatchSize is negative
+     * @throws IllegalStateException    if the scheduler orders single jobs by critical-path priority
+     */
+    public void setDispatchBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 0) {
+            throw new IllegalArgumentException("Batch size must not be negative: " + maxBatchSize);
         }
-        
-        if (visited.contains(job)) {
-            return false; // Already processed
+        if (costModel != null && maxBatchSize > 0) {
+            throw new IllegalStateException("A critical-path priority scheduler dispatches every job on its own");
         }
-        
-        visited.add(job);
-        recursionStack.add(job);
-        
-        for (Job child : job.getChildrenJobs()) {
-            if (hasCycleDFS(child, visited, recursionStack)) {
-                return true;
-            }
+        this.dispatchBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Getter method for the largest number of ready jobs handed to the executor as one task in new runs
+     *
+     * @return the batch size, or 0 if every job is dispatched on its own
+     */
+    public int getDispatchBatchSize() {
+        return dispatchBatchSize;
+    }
+
+    /**
+     * Register a concurrency group that jobs can join by name with {@link Job#setConcurrencyGroup(String)}
+     * <p>
+     * The group's limits apply across every run of this scheduler.
+     *
+     * @param group the group, replacing any registered group of the same name for runs submitted from now on
+     */
+    public void addConcurrencyGroup(ConcurrencyGroup group) {
+        if (group == null) {
+            throw new IllegalArgumentException("Concurrency group must not be null");
         }
-        
-        recursionStack.remove(job);
-        return false;
+        concurrencyGroups.put(group.getName(), group);
     }
 
     /**
-     * Get all child jobs in order
+     * Getter method for a registered concurrency group
      *
-     * @param startingJobs set of starting jobs
-     * @return list of all child jobs in order
+     * @param name the name of the group
+     * @return the group, or null if none of this name is registered
      */
-    private List<Job> getAllChildrenJobsInOrder(Set<Job> startingJobs) {
-        List<Job> allChildrenJobs = new ArrayList<>();
-        Set<Job> allChildrenJobsSet = new HashSet<>();
-        Queue<Job> queue = new LinkedList<>(startingJobs);
-        while (!queue.isEmpty()) {
-            Job job = queue.poll();
-            if (!startingJobs.contains(job) && !allChildrenJobsSet.contains(job)) {
-                allChildrenJobsSet.add(job);
-                allChildrenJobs.add(job);
-            }
-            for (Job childJob : job.getChildrenJobs()) {
-                if (!allChildrenJobsSet.contains(childJob)) {
-                    queue.add(childJob);
-                }
-            }
+    public ConcurrencyGroup getConcurrencyGroup(String name) {
+        return concurrencyGroups.get(name);
+    }
+
+    /**
+     * Register a listener for the timing measurements of every run submitted from now on
+     *
+     * @param listener the listener
+     */
+    public void addListener(SchedulerListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
         }
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener; runs already submitted keep reporting to it
+     *
+     * @param listener the listener
+     */
+    public void removeListener(SchedulerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Submit a DAG for execution without waiting for it
+     * <p>
+     * The jobs are first compiled into a {@link JobGraph}. Only the jobs without parents are dispatched up front;
+     * every other job is dispatched by the worker that completes its last parent, so no pool thread ever sits
+     * waiting on a dependency. The returned handle exposes a {@link java.util.concurrent.CompletableFuture} for the
+     * whole run and for each job.
+     *
+     * @param startingJobs list of starting jobs to be scheduled
+     * @return a handle for the run
+     * @throws IllegalArgumentException if the dependencies contain a cycle, a job demands more resources than the
+     *                                  resource pool has, or a job is in a concurrency group that is not registered
+     * @throws IllegalStateException    if the scheduler has been closed
+     */
+    public DagRun submit(List<Job> startingJobs) {
+        return submit(startingJobs, null);
+    }
 
-        return allChildrenJobs;
+    /**
+     * Submit a DAG for execution without waiting for it, resuming from a journal of an earlier, interrupted run
+     * <p>
+     * Jobs the journal recorded as finished are marked RESTORED and not run; the run dispatches every other job as
+     * soon as its parents have all finished, in this run or the earlier one. Each job that succeeds is appended to
+     * the journal, so the run can be resumed again if it is interrupted too. The caller closes the journal after the
+     * run, and deletes its file once the DAG has completed.
+     *
+     * @param startingJobs list of starting jobs to be scheduled
+     * @param journal      the journal to resume from and record to, or null to run every job
+     * @return a handle for the run
+     * @throws IllegalArgumentException if the dependencies contain a cycle, or if a journal is given and two jobs
+     *                                  have the same name
+     * @throws IllegalStateException    if the scheduler has been closed
+     */
+    public DagRun submit(List<Job> startingJobs, RunJournal journal) {
+        // Validate the graph and order it in a single pass; throws if the dependencies contain a cycle
+        return submit(JobGraph.compile(startingJobs), journal);
     }
 
     /**
-     * This method is responsible for processing a single job in the parallel job scheduler. It first waits for all parent jobs to complete,
+     * Submit a compiled DAG for execution without waiting for it
+     * <p>
+     * A graph holds no run state, so compiling a DAG once and submitting the graph for every periodic run saves
+     * walking and validating the jobs each time. Any number of runs of the same graph may be active at once; each
+     * has its own counters, statuses and results. Jobs declared after the graph was compiled are not part of it.
      * <p>
-     * then runs the current job, and finally starts all child jobs in parallel.
+     * A graph loaded from a {@link models.JobGraphSnapshot} creates its jobs on first use, so the run looks at each
+     * job only once it becomes ready. A job that could never start then fails with an
+     * {@link IllegalArgumentException} instead of the submission throwing it.
      *
-     * @param job the Job object to be processed
+     * @param graph the compiled graph, from {@link JobGraph#compile}
+     * @return a handle for the run
+     * @throws IllegalStateException if the scheduler has been closed
+     */
+    public DagRun submit(JobGraph graph) {
+        return submit(graph, null);
+    }
+
+    /**
+     * Submit a compiled DAG for execution without waiting for it, resuming from a journal of an earlier run
+     *
+     * @param graph   the compiled graph, from {@link JobGraph#compile}
+     * @param journal the journal to resume from and record to, or null to run every job
+     * @return a handle for the run
+     * @throws IllegalArgumentException if a journal is given and two jobs of the graph have the same name
+     * @throws IllegalStateException    if the scheduler has been closed
+     * @see #submit(List, RunJournal)
+     */
+    public DagRun submit(JobGraph graph, RunJournal journal) {
+        DagRun run = new DagRun(this, graph, journal);
+        synchronized (activeRuns) {
+            if (closed) {
+                throw new IllegalStateException("Scheduler is closed");
+            }
+            activeRuns.add(run);
+        }
+        run.start(runTimeoutMs);
+        return run;
+    }
+
+    /**
+     * Schedule all jobs in the given list and wait for them to complete
+     * <p>
+     * The wait is bounded only by the run deadline and job timeouts configured on this scheduler. A job that throws
+     * does not make this method throw; the returned summary tells how each job ended.
+     *
+     * @param startingJobs list of starting jobs to be scheduled
+     * @return the status of every job; if the waiting thread was interrupted, a snapshot taken after cancelling
      */
-    private void processJob(Job job) {
-        // Wait for parent jobs to complete
+    public RunSummary scheduleAllJobs(List<Job> startingJobs) {
+        return scheduleAllJobs(startingJobs, null);
+    }
+
+    /**
+     * Schedule all jobs in the given list, skipping those a journal recorded as finished, and wait for them to
+     * complete
+     *
+     * @param startingJobs list of starting jobs to be scheduled
+     * @param journal      the journal to resume from and record to, or null to run every job
+     * @return the status of every job; if the waiting thread was interrupted, a snapshot taken after cancelling
+     * @see #submit(List, RunJournal)
+     */
+    public RunSummary scheduleAllJobs(List<Job> startingJobs, RunJournal journal) {
+        DagRun run = submit(startingJobs, journal);
         try {
-            // The await() method is used to block the current thread until the countdown latch reaches zero.
-            // This ensures that all parent jobs have completed before the current job runs.
-            job.getLatch().await();
-        } catch (InterruptedException e) {
-            // Handle interruption exception
-            e.printStackTrace();
-        }
-
-        // Run the job
-        job.run();
-
-        // Start child jobs in parallel
-        for (Job childJob : job.getChildrenJobs()) {
-            // The countDown() method decrements the count of the latch, which will unblock any threads waiting on the latch.
-            // This allows the child jobs to start running in parallel with the current job.
-            childJob.getLatch().countDown();
+            run.await(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ie) {
+            // Cancel currently executing jobs
+            run.cancel();
+            // Preserve interrupt status
+            Thread.currentThread().interrupt();
+        }
+        return run.getSummary();
+    }
+
+    /**
+     * Stop accepting runs, wait for the active runs to finish and shut down the executor if the scheduler owns it
+     */
+    @Override
+    public void close() {
+        synchronized (activeRuns) {
+            closed = true;
+        }
+        try {
+            for (DagRun run : activeRuns) {
+                run.await(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException ie) {
+            // Cancel currently executing jobs
+            activeRuns.forEach(DagRun::cancel);
+            // Preserve interrupt status
+            Thread.currentThread().interrupt();
+        }
+        timer.shutdownNow();
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    Executor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    JobCostModel getCostModel() {
+        return costModel;
+    }
+
+    ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    SchedulerListener[] getListeners() {
+        return listeners.toArray(new SchedulerListener[0]);
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    void runFinished(DagRun run) {
+        activeRuns.remove(run);
+    }
+
+    /**
+     * Creates the daemon threads of an owned pool or of the timer, so a scheduler that is never closed cannot keep
+     * the JVM alive
+     */
+    private static class WorkerThreadFactory implements ThreadFactory, ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private static final AtomicInteger schedulerCount = new AtomicInteger();
+        private final AtomicInteger threadCount = new AtomicInteger();
+        private final int schedulerNumber = schedulerCount.incrementAndGet();
+        private final String role;
+
+        WorkerThreadFactory(String role) {
+            this.role = role;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, nextName());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            // Workers of the default factory are already daemon threads
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(nextName());
+            return thread;
+        }
+
+        private String nextName() {
+            return "job-scheduler-" + schedulerNumber + "-" + role + "-" + threadCount.incrementAndGet();
         }
     }
 }
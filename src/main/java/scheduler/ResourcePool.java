@@ -0,0 +1,231 @@
+package scheduler;
+
+import models.Job;
+import models.ResourceDemand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * The CPU slots, memory units and named tokens shared by every run of a scheduler.
+ * <p>
+ * A ready job that declares a {@link ResourceDemand} is handed to the executor only once the pool holds everything it
+ * needs, and returns it when its attempt ends. Until then it waits in the pool's queue, not on a thread. Waiting
+ * jobs are started in the order they became ready, except that a job that does not fit is passed by later jobs
+ * that do, so light jobs fill the capacity around heavy ones. To keep a heavy job from starving, the oldest waiting
+ * job can be passed at most {@link #setMaxBypasses(int) maxBypasses} times; after that the jobs behind it wait until
+ * it has started. Jobs without a demand are limited only by the worker threads.
+ */
+public class ResourcePool {
+    private final int cpuCapacity;
+    private final int memoryCapacity;
+    private final Map<String, Integer> tokenCapacity;
+    private final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+    private final Map<String, Integer> availableTokens;
+    private int availableCpuSlots;
+    private int availableMemoryUnits;
+    private int maxBypasses = 16;
+
+    /**
+     * Constructor for a pool of CPU slots and memory only
+     *
+     * @param cpuSlots    the number of CPU slots
+     * @param memoryUnits the number of memory units
+     * @throws IllegalArgumentException if an amount is negative
+     */
+    public ResourcePool(int cpuSlots, int memoryUnits) {
+        this(cpuSlots, memoryUnits, Collections.emptyMap());
+    }
+
+    /**
+     * Constructor for the ResourcePool class
+     *
+     * @param cpuSlots    the number of CPU slots
+     * @param memoryUnits the number of memory units
+     * @param tokens      the number of each named token, such as {@code Map.of("db-connection", 10)}
+     * @throws IllegalArgumentException if an amount is negative
+     */
+    public ResourcePool(int cpuSlots, int memoryUnits, Map<String, Integer> tokens) {
+        // Validates the amounts the same way as a demand
+        ResourceDemand capacity = new ResourceDemand(cpuSlots, memoryUnits, tokens);
+        this.cpuCapacity = cpuSlots;
+        this.memoryCapacity = memoryUnits;
+        this.tokenCapacity = capacity.getTokens();
+        this.availableCpuSlots = cpuSlots;
+        this.availableMemoryUnits = memoryUnits;
+        this.availableTokens = new HashMap<>(tokens);
+    }
+
+    /**
+     * Set how often the oldest waiting job may be passed by later jobs before they have to wait for it
+     *
+     * @param maxBypasses the number of times, 0 for strict arrival order (the default is 16)
+     * @throws IllegalArgumentException if maxBypasses is negative
+     */
+    public synchronized void setMaxBypasses(int maxBypasses) {
+        if (maxBypasses < 0) {
+            throw new IllegalArgumentException("Max bypasses must not be negative: " + maxBypasses);
+        }
+        this.maxBypasses = maxBypasses;
+    }
+
+    /**
+     * Getter method for the number of free CPU slots
+     *
+     * @return the CPU slots not held by a running job
+     */
+    public synchronized int getAvailableCpuSlots() {
+        return availableCpuSlots;
+    }
+
+    /**
+     * Getter method for the number of free memory units
+     *
+     * @return the memory units not held by a running job
+     */
+    public synchronized int getAvailableMemoryUnits() {
+        return availableMemoryUnits;
+    }
+
+    /**
+     * Getter method for the number of free tokens of a name
+     *
+     * @param name the name of the token
+     * @return the tokens not held by a running job, 0 for a name the pool does not have
+     */
+    public synchronized int getAvailableTokens(String name) {
+        return availableTokens.getOrDefault(name, 0);
+    }
+
+    /**
+     * Getter method for the number of ready jobs waiting for resources
+     *
+     * @return the number of waiting jobs
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Check that a job's demand can ever be met, so it cannot wait forever
+     *
+     * @param job the Job
+     * @throws IllegalArgumentException if the Job demands more of a resource than the pool has in total
+     */
+    void checkCapacity(Job job) {
+        ResourceDemand demand = job.getResourceDemand();
+        if (demand.getCpuSlots() > cpuCapacity || demand.getMemoryUnits() > memoryCapacity) {
+            throw new IllegalArgumentException(job.getName() + " needs " + demand + ", but the pool has only "
+                    + cpuCapacity + " CPU slots and " + memoryCapacity + " memory units");
+        }
+        for (Map.Entry<String, Integer> token : demand.getTokens().entrySet()) {
+            if (token.getValue() > tokenCapacity.getOrDefault(token.getKey(), 0)) {
+                throw new IllegalArgumentException(job.getName() + " needs " + token.getValue() + " "
+                        + token.getKey() + " tokens, but the pool has only "
+                        + tokenCapacity.getOrDefault(token.getKey(), 0));
+            }
+        }
+    }
+
+    /**
+     * Hand a task to the executor once its demand can be met; the task releases the demand when it ends
+     *
+     * @param task     the task of a ready job
+     * @param demand   the resources the job holds while it runs
+     * @param executor the executor to run the task on
+     */
+    void submit(JobTask task, ResourceDemand demand, Executor executor) {
+        synchronized (this) {
+            waiting.add(new Ticket(task, demand, executor));
+        }
+        startWaiting();
+    }
+
+    /**
+     * Return the resources of a job whose attempt ended, and start the waiting jobs that now fit
+     *
+     * @param demand the resources the job held
+     */
+    void release(ResourceDemand demand) {
+        synchronized (this) {
+            availableCpuSlots += demand.getCpuSlots();
+            availableMemoryUnits += demand.getMemoryUnits();
+            for (Map.Entry<String, Integer> token : demand.getTokens().entrySet()) {
+                availableTokens.merge(token.getKey(), token.getValue(), Integer::sum);
+            }
+        }
+        startWaiting();
+    }
+
+    private void startWaiting() {
+        List<Ticket> started = new ArrayList<>();
+        synchronized (this) {
+            // The first job that does not fit is the one the others may pass, up to maxBypasses times
+            Ticket blocked = null;
+            for (Iterator<Ticket> it = waiting.iterator(); it.hasNext(); ) {
+                Ticket ticket = it.next();
+                if (!fits(ticket.demand)) {
+                    if (blocked == null) {
+                        blocked = ticket;
+                    }
+                    continue;
+                }
+                if (blocked != null) {
+                    if (blocked.bypasses >= maxBypasses) {
+                        break; // Reserve the freed resources for the blocked job
+                    }
+                    blocked.bypasses++;
+                }
+                acquire(ticket.demand);
+                it.remove();
+                started.add(ticket);
+            }
+        }
+        // Executed outside the lock, since an executor may run the task on this thread
+        for (Ticket ticket : started) {
+            ticket.executor.execute(ticket.task);
+        }
+    }
+
+    private boolean fits(ResourceDemand demand) {
+        if (demand.getCpuSlots() > availableCpuSlots || demand.getMemoryUnits() > availableMemoryUnits) {
+            return false;
+        }
+        for (Map.Entry<String, Integer> token : demand.getTokens().entrySet()) {
+            if (token.getValue() > availableTokens.getOrDefault(token.getKey(), 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void acquire(ResourceDemand demand) {
+        availableCpuSlots -= demand.getCpuSlots();
+        availableMemoryUnits -= demand.getMemoryUnits();
+        for (Map.Entry<String, Integer> token : demand.getTokens().entrySet()) {
+            availableTokens.merge(token.getKey(), -token.getValue(), Integer::sum);
+        }
+    }
+
+    /**
+     * A ready job waiting for its resources
+     */
+    private static final class Ticket {
+        private final JobTask task;
+        private final ResourceDemand demand;
+        private final Executor executor;
+        private int bypasses;
+
+        Ticket(JobTask task, ResourceDemand demand, Executor executor) {
+            this.task = task;
+            this.demand = demand;
+            this.executor = executor;
+        }
+    }
+}
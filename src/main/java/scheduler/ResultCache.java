@@ -0,0 +1,145 @@
+package scheduler;
+
+import models.Job;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A size-bounded LRU cache of job outcomes, keyed by job name plus a key derived from input fingerprints.
+ * <p>
+ * A scheduler with a cache (see {@link ParallelJobScheduler#setResultCache(ResultCache)}) records every successful
+ * job that declares an input fingerprint, together with its result if it is a {@link models.ResultJob}. The key is
+ * the job's fingerprint if it has no parents, and otherwise a SHA-256 hash of the fingerprint and its parents' keys,
+ * so it covers every ancestor. A later run skips the job if its key is cached, which needs the fingerprints of the
+ * job and all its ancestors to be unchanged. Cached results are handed to children of later runs as is, so they must
+ * not be mutated. Job names identify jobs across runs, as for the cost model, so they must be unique within a DAG.
+ */
+public class ResultCache {
+    // Returned by get when there is no entry
+    static final Object MISS = new Object();
+    // Stands in for a null result, so a cached null is distinguishable from a miss
+    private static final Object NULL_RESULT = new Object();
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Object> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor for the ResultCache class
+     *
+     * @param maxEntries the number of entries kept before the least recently used one is evicted
+     * @throws IllegalArgumentException if maxEntries is less than 1
+     */
+    public ResultCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be at least 1: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > ResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Check whether a job has a cached outcome for a key
+     *
+     * @param job the Job
+     * @param key the cache key of the Job, which is its input fingerprint if it has no parents
+     * @return true if the Job succeeded with this key before and the entry was not evicted
+     */
+    public synchronized boolean contains(Job job, String key) {
+        return entries.containsKey(new Key(job.getName(), key));
+    }
+
+    /**
+     * Look up the cached outcome of a job, marking it most recently used
+     *
+     * @param job the Job
+     * @param key the cache key of the Job
+     * @return the cached result, null for a job without a result, or {@link #MISS}
+     */
+    synchronized Object get(Job job, String key) {
+        Object result = entries.get(new Key(job.getName(), key));
+        if (result == null) {
+            misses++;
+            return MISS;
+        }
+        hits++;
+        return result == NULL_RESULT ? null : result;
+    }
+
+    /**
+     * Record the outcome of a successful job
+     *
+     * @param job    the Job
+     * @param key    the cache key the Job ran with
+     * @param result the result of the Job, or null
+     */
+    synchronized void put(Job job, String key, Object result) {
+        entries.put(new Key(job.getName(), key), result == null ? NULL_RESULT : result);
+    }
+
+    /**
+     * Getter method for the number of cached entries
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Getter method for the number of lookups that found an entry
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter method for the number of lookups that found no entry
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Forget every entry, so the next run of each job runs it
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static final class Key {
+        private final String jobName;
+        private final String inputKey;
+
+        Key(String jobName, String inputKey) {
+            this.jobName = jobName;
+            this.inputKey = inputKey;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return jobName.equals(key.jobName) && inputKey.equals(key.inputKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jobName, inputKey);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package scheduler;
+
+import models.Job;
+import models.ResultJob;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file recording which jobs of a DAG have finished, so a run interrupted by a crash can be resumed.
+ * <p>
+ * Opening a journal replays it: every job it records is reported by {@link #getCompletedJobs()}, and a run submitted
+ * with the journal (see {@link ParallelJobScheduler#submit(List, RunJournal)}) marks those jobs RESTORED instead of
+ * running them, then dispatches the jobs whose parents are all finished. Every job that succeeds in the run is
+ * appended to the journal.
+ * <p>
+ * Workers only add the job's name to an in-memory batch. A single background thread writes each batch with one
+ * {@link FileChannel#write} and makes it durable with one {@link FileChannel#force}, so a burst of completions costs
+ * a single fsync and no worker waits for the disk. Records are written in the order jobs finished, so a recorded
+ * job's parents are always recorded before it. A crash loses at most the last unsynced batch, whose jobs then run
+ * again on resume.
+ * <p>
+ * Each record is the length of the job's name, the name in UTF-8 and a CRC32 of the name. Replay stops at the first
+ * incomplete or corrupt record, which a crash mid-write can leave, and truncates the file there. Jobs are identified
+ * by name, as for the cost model, so submitting a DAG with a journal fails if two of its jobs share a name. Results
+ * of {@link ResultJob}s live only in memory, so those jobs are never recorded and always run again.
+ */
+public final class RunJournal implements AutoCloseable {
+    // Name length and CRC32 around each name
+    private static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final Set<String> completedJobs;
+    private final Thread writer;
+    private List<String> pending = new ArrayList<>();
+    private long recordedCount;
+    private long durableCount;
+    private boolean writerWaiting;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private RunJournal(FileChannel channel, Set<String> completedJobs) {
+        this.channel = channel;
+        this.completedJobs = completedJobs;
+        this.writer = new Thread(this::write, "run-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open a journal, creating the file if it does not exist, and replay the jobs it records
+     *
+     * @param path the journal file
+     * @return the journal, appending to the file
+     * @throws IOException if the file cannot be read or opened for writing
+     */
+    public static RunJournal open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            Set<String> completedJobs = new HashSet<>();
+            long validLength = replay(channel, completedJobs);
+            // Drop a torn tail so new records follow the last complete one
+            channel.truncate(validLength);
+            channel.position(validLength);
+            return new RunJournal(channel, Collections.unmodifiableSet(completedJobs));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long replay(FileChannel channel, Set<String> completedJobs) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Journal is too large to replay: " + size + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Read until the buffer is full
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_OVERHEAD) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining() - Integer.BYTES) {
+                buffer.position(start);
+                break;
+            }
+            byte[] name = new byte[length];
+            buffer.get(name);
+            crc.reset();
+            crc.update(name);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                buffer.position(start);
+                break;
+            }
+            completedJobs.add(new String(name, StandardCharsets.UTF_8));
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Getter method for the jobs the journal recorded as finished when it was opened
+     *
+     * @return the names of the finished jobs; completions recorded since opening are not included
+     */
+    public Set<String> getCompletedJobs() {
+        return completedJobs;
+    }
+
+    /**
+     * Check whether a job can be skipped because the journal recorded it as finished
+     *
+     * @param job the Job
+     * @return true if the Job is recorded and is not a {@link ResultJob}
+     */
+    boolean isCompleted(Job job) {
+        return !(job instanceof ResultJob) && completedJobs.contains(job.getName());
+    }
+
+    /**
+     * Queue a finished job for the next group commit; returns without waiting for the disk
+     *
+     * @param job the Job that finished; ignored if it is a {@link ResultJob} or the journal is closed
+     */
+    synchronized void record(Job job) {
+        if (closed || job instanceof ResultJob) {
+            return;
+        }
+        pending.add(job.getName());
+        recordedCount++;
+        if (writerWaiting) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait until every job recorded so far is durable on disk
+     *
+     * @throws IOException          if writing the journal failed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void flush() throws IOException, InterruptedException {
+        synchronized (this) {
+            long target = recordedCount;
+            while (durableCount < target && writer.isAlive()) {
+                wait();
+            }
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Write the remaining records, stop the background thread and close the file
+     *
+     * @throws IOException if writing or closing the journal failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            // Close the file anyway; the unsynced tail is replayed as far as it got
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        throwIfFailed();
+    }
+
+    private void throwIfFailed() throws IOException {
+        IOException cause = failure;
+        if (cause != null) {
+            throw new IOException("Writing the journal failed", cause);
+        }
+    }
+
+    /**
+     * Body of the background thread: swap out the pending batch, write it and sync it, until closed and drained
+     */
+    private void write() {
+        List<String> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        CRC32 crc = new CRC32();
+        while (true) {
+            long batchEnd;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    writerWaiting = true;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    } finally {
+                        writerWaiting = false;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                List<String> swapped = pending;
+                pending = batch;
+                batch = swapped;
+                batchEnd = recordedCount;
+            }
+            if (failure == null) {
+                try {
+                    buffer = encode(batch, buffer, crc);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    // Later records are dropped; those jobs run again on resume
+                    failure = e;
+                }
+            }
+            batch.clear();
+            synchronized (this) {
+                durableCount = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    private static ByteBuffer encode(List<String> batch, ByteBuffer buffer, CRC32 crc) {
+        buffer.clear();
+        for (String jobName : batch) {
+            byte[] name = jobName.getBytes(StandardCharsets.UTF_8);
+            if (buffer.remaining() < name.length + RECORD_OVERHEAD) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + name.length + RECORD_OVERHEAD);
+                buffer = ByteBuffer.allocate(capacity).put(buffer.flip());
+            }
+            crc.reset();
+            crc.update(name);
+            buffer.putInt(name.length).put(name).putInt((int) crc.getValue());
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
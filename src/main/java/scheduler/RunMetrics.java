@@ -0,0 +1,100 @@
+package scheduler;
+
+/**
+ * Measurements of one finished {@link DagRun}, passed to {@link SchedulerListener#onRunFinished(RunMetrics)}.
+ */
+public final class RunMetrics {
+    private final DagRun run;
+    private final long wallNanos;
+    private final long busyNanos;
+    private final long criticalPathNanos;
+    private final int maxReadyQueueDepth;
+    private final int parallelism;
+
+    /**
+     * Constructor for the RunMetrics class
+     *
+     * @param run                the run
+     * @param wallNanos          time from submission until the last job finished
+     * @param busyNanos          total run time of every attempt of every job
+     * @param criticalPathNanos  run time of the longest chain of dependent jobs
+     * @param maxReadyQueueDepth the largest number of jobs that were ready but not yet started
+     * @param parallelism        the number of workers of the scheduler, or 0 if unbounded
+     */
+    RunMetrics(DagRun run, long wallNanos, long busyNanos, long criticalPathNanos, int maxReadyQueueDepth,
+               int parallelism) {
+        this.run = run;
+        this.wallNanos = wallNanos;
+        this.busyNanos = busyNanos;
+        this.criticalPathNanos = criticalPathNanos;
+        this.maxReadyQueueDepth = maxReadyQueueDepth;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Getter method for the run
+     *
+     * @return the run that was measured
+     */
+    public DagRun getRun() {
+        return run;
+    }
+
+    /**
+     * Getter method for the wall-clock time of the run
+     *
+     * @return the time from submission until the last job finished, in nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Getter method for the time workers spent running jobs of the run
+     *
+     * @return the total run time of every attempt of every job, in nanoseconds
+     */
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    /**
+     * Getter method for the critical-path time of the run
+     * <p>
+     * No schedule could finish the run faster than this with the same job run times; a wall time far above it
+     * points at scheduling delay or too few workers.
+     *
+     * @return the total run time of the longest chain of dependent jobs, in nanoseconds
+     */
+    public long getCriticalPathNanos() {
+        return criticalPathNanos;
+    }
+
+    /**
+     * Getter method for the ready-queue depth of the run
+     *
+     * @return the largest number of jobs of the run that were ready but not yet started at the same time
+     */
+    public int getMaxReadyQueueDepth() {
+        return maxReadyQueueDepth;
+    }
+
+    /**
+     * Getter method for the share of the scheduler's workers the run kept busy
+     *
+     * @return busy time divided by wall time times the number of workers, or NaN if the scheduler's concurrency
+     * is unbounded
+     */
+    public double getUtilization() {
+        if (parallelism == 0 || wallNanos == 0) {
+            return Double.NaN;
+        }
+        return (double) busyNanos / ((double) wallNanos * parallelism);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("wall=%dns busy=%dns criticalPath=%dns maxReadyQueueDepth=%d utilization=%.2f",
+                wallNanos, busyNanos, criticalPathNanos, maxReadyQueueDepth, getUtilization());
+    }
+}
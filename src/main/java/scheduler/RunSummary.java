@@ -0,0 +1,151 @@
+package scheduler;
+
+import models.Job;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The status of every job of a {@link DagRun}, taken at one point in time.
+ * <p>
+ * A summary taken after the run is done is final. Jobs are listed in the topological order of the run's graph,
+ * followed by the jobs added to the run in the order they were added.
+ */
+public final class RunSummary {
+    private final DagRun run;
+    private final JobStatus[] statuses;
+    private final int[] attempts;
+    private final Map<Integer, Throwable> failures;
+    private final int[] counts = new int[JobStatus.values().length];
+
+    /**
+     * Constructor for the RunSummary class
+     *
+     * @param run      the run
+     * @param statuses the status of each job, indexed by ID
+     * @param attempts the number of times each job was started, indexed by ID
+     * @param failures the cause of each failed or timed out job, keyed by ID
+     */
+    RunSummary(DagRun run, JobStatus[] statuses, int[] attempts, Map<Integer, Throwable> failures) {
+        this.run = run;
+        this.statuses = statuses;
+        this.attempts = attempts;
+        this.failures = failures;
+        for (JobStatus status : statuses) {
+            counts[status.ordinal()]++;
+        }
+    }
+
+    /**
+     * Getter method for the status of a Job
+     *
+     * @param job the Job
+     * @return the status of the Job
+     * @throws IllegalArgumentException if the Job is not part of the run
+     */
+    public JobStatus getStatus(Job job) {
+        return statuses[requireId(job)];
+    }
+
+    /**
+     * Getter method for the number of times a Job was started
+     *
+     * @param job the Job
+     * @return the number of attempts, 0 if the Job never started
+     * @throws IllegalArgumentException if the Job is not part of the run
+     */
+    public int getAttempts(Job job) {
+        return attempts[requireId(job)];
+    }
+
+    /**
+     * Getter method for the reason a Job failed or timed out
+     *
+     * @param job the Job
+     * @return the exception the Job threw or its {@link java.util.concurrent.TimeoutException}, or null if the Job
+     * did neither
+     * @throws IllegalArgumentException if the Job is not part of the run
+     */
+    public Throwable getFailure(Job job) {
+        return failures.get(requireId(job));
+    }
+
+    /**
+     * Getter method for the number of jobs with a status
+     *
+     * @param status the status
+     * @return the number of jobs with the status
+     */
+    public int getCount(JobStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    /**
+     * Getter method for the jobs with a status
+     *
+     * @param status the status
+     * @return the jobs with the status, in topological order
+     */
+    public List<Job> getJobs(JobStatus status) {
+        List<Job> jobs = new ArrayList<>(counts[status.ordinal()]);
+        for (int id = 0; id < statuses.length; id++) {
+            if (statuses[id] == status) {
+                jobs.add(run.getJob(id));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Check whether every job of the run succeeded or was up to date
+     *
+     * @return true if every job succeeded, was cached or was restored from a journal
+     */
+    public boolean isSuccessful() {
+        return counts[JobStatus.SUCCEEDED.ordinal()] + counts[JobStatus.CACHED.ordinal()]
+                + counts[JobStatus.RESTORED.ordinal()] == statuses.length;
+    }
+
+    /**
+     * Format the summary as the number of jobs per status, followed by one line per failed or timed out job
+     *
+     * @return the summary, e.g. "7 SUCCEEDED, 1 FAILED, 1 SKIPPED" and a line for the failed job
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (JobStatus status : JobStatus.values()) {
+            if (counts[status.ordinal()] > 0) {
+                if (summary.length() > 0) {
+                    summary.append(", ");
+                }
+                summary.append(counts[status.ordinal()]).append(' ').append(status);
+            }
+        }
+        if (summary.length() == 0) {
+            summary.append("no jobs");
+        }
+        for (int id = 0; id < statuses.length; id++) {
+            Throwable failure = failures.get(id);
+            if (failure != null) {
+                summary.append(System.lineSeparator()).append("  ").append(run.getJob(id).getName())
+                        .append(' ').append(statuses[id]);
+                if (attempts[id] > 1) {
+                    summary.append(" after ").append(attempts[id]).append(" attempts");
+                }
+                summary.append(": ").append(failure);
+            }
+        }
+        return summary.toString();
+    }
+
+    private int requireId(Job job) {
+        int id = run.findId(job);
+        // A job added to the run after the summary was taken is not part of it
+        if (id < 0 || id >= statuses.length) {
+            throw new IllegalArgumentException(job.getName() + " is not part of this run");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,37 @@
+package scheduler;
+
+import models.Job;
+
+/**
+ * Receives timing measurements from a {@link ParallelJobScheduler}, registered with
+ * {@link ParallelJobScheduler#addListener(SchedulerListener)}.
+ * <p>
+ * Job measurements are passed as primitives on the worker that ran the job, so reporting allocates nothing.
+ * Implementations are called concurrently from many workers, must be fast and must not throw; record into
+ * counters or a {@link LatencyHistogram} and aggregate elsewhere, as {@link MetricsRecorder} does. A scheduler
+ * without listeners takes no timestamps at all.
+ */
+public interface SchedulerListener {
+    /**
+     * Called after each attempt of a job, on the worker that ran it
+     *
+     * @param run            the run the Job belongs to
+     * @param job            the Job
+     * @param status         the status of the Job after the attempt; PENDING if it will be retried
+     * @param releasedAtNanos when the Job became ready to run, in nanoseconds since the run was submitted; for a
+     *                       retry, when the attempt was dispatched again
+     * @param queueWaitNanos how long the Job waited between becoming ready and starting on a worker
+     * @param runNanos       how long the attempt ran
+     */
+    default void onJobExecuted(DagRun run, Job job, JobStatus status, long releasedAtNanos, long queueWaitNanos,
+                               long runNanos) {
+    }
+
+    /**
+     * Called once per run, after every job has finished and before the run's future completes
+     *
+     * @param metrics the measurements of the run
+     */
+    default void onRunFinished(RunMetrics metrics) {
+    }
+}
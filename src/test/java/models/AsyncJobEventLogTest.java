@@ -0,0 +1,112 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class AsyncJobEventLogTest {
+
+    @Test
+    void testEventsArePassedOnInOrder() throws InterruptedException {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        Job job = new Job("TestJob", message -> { }, new Random(42));
+
+        try (AsyncJobEventLog log = new AsyncJobEventLog(16, JobEventSink.formatting(lines::add))) {
+            log.onEvent(JobEvent.STARTED, job, 1);
+            log.onEvent(JobEvent.COMPLETED, job, 2);
+            log.flush();
+
+            assertEquals(Arrays.asList("TestJob started", "TestJob completed"), lines);
+        }
+    }
+
+    @Test
+    void testConcurrentProducersLoseNothingWhileThereIsRoom() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 10_000;
+        Queue<Long> received = new ConcurrentLinkedQueue<>();
+        Job job = new Job("TestJob", message -> { }, new Random(42));
+
+        try (AsyncJobEventLog log = new AsyncJobEventLog(producers * eventsPerProducer,
+                (event, eventJob, nanoTime) -> received.add(nanoTime))) {
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p * eventsPerProducer;
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < eventsPerProducer; i++) {
+                        log.onEvent(JobEvent.STARTED, job, base + i);
+                    }
+                });
+                threads[p].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            log.flush();
+
+            assertEquals(0, log.getDroppedCount());
+            assertEquals(producers * eventsPerProducer, new HashSet<>(received).size());
+        }
+    }
+
+    @Test
+    void testFullRingDropsInsteadOfBlocking() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstReceived = new CountDownLatch(1);
+        Job job = new Job("TestJob", message -> { }, new Random(42));
+
+        try (AsyncJobEventLog log = new AsyncJobEventLog(4, (event, eventJob, nanoTime) -> {
+            firstReceived.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            log.onEvent(JobEvent.STARTED, job, 0);
+            assertTrue(firstReceived.await(5, TimeUnit.SECONDS));
+            // The drainer is stuck in the delegate with the ring empty, so exactly 4 more events fit
+            for (int i = 1; i <= 10; i++) {
+                log.onEvent(JobEvent.STARTED, job, i);
+            }
+            assertEquals(6, log.getDroppedCount());
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testIdleDrainerIsWokenByTheNextEvent() throws InterruptedException {
+        BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+        Job job = new Job("TestJob", message -> { }, new Random(42));
+
+        try (AsyncJobEventLog log = new AsyncJobEventLog(16, (event, eventJob, nanoTime) -> received.add(nanoTime))) {
+            for (long i = 0; i < 5; i++) {
+                // Gives the drainer time to find the ring empty and park without a timeout
+                Thread.sleep(20);
+                log.onEvent(JobEvent.STARTED, job, i);
+                // Without flush(), only the producer's wake-up gets the event delivered
+                assertEquals(i, received.poll(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    void testJobReportsEventsToItsSink() {
+        List<JobEvent> events = new ArrayList<>();
+        Job job = new Job("TestJob", message -> { }, new Random(42));
+        job.setSleepTimeMs(0);
+        job.setEventSink((event, eventJob, nanoTime) -> {
+            assertSame(job, eventJob);
+            events.add(event);
+        });
+
+        job.run();
+
+        assertEquals(Arrays.asList(JobEvent.STARTED, JobEvent.COMPLETED), events);
+    }
+}
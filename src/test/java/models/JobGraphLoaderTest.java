@@ -0,0 +1,95 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+import java.util.function.Function;
+
+class JobGraphLoaderTest {
+    private Function<String, Job> jobFactory;
+
+    @BeforeEach
+    void setUp() {
+        jobFactory = name -> new Job(name, message -> { }, new Random(42));
+    }
+
+    @Test
+    void testLoadBuildsGraphWithRootsFirst() throws IOException {
+        String text = "# name\tparents...\r\n"
+                + "Job A\n"
+                + "Job C\tJob A\n"
+                + "\n"
+                + "Job B\n"
+                + "Job D\tJob C\t\tJob B\n";
+
+        JobGraph graph = JobGraphLoader.load(new StringReader(text), jobFactory);
+
+        assertEquals(4, graph.size());
+        assertEquals(2, graph.getRootCount());
+        assertEquals(Arrays.asList("Job A", "Job B"), names(graph, 0, 2));
+        int jobD = idOf(graph, "Job D");
+        assertEquals(2, graph.getParentCount(jobD));
+        Set<String> parents = new HashSet<>();
+        for (int e = graph.getParentStart(jobD); e < graph.getParentEnd(jobD); e++) {
+            parents.add(graph.getJob(graph.getParent(e)).getName());
+            assertTrue(graph.getParent(e) < jobD, "parents must come before their children");
+        }
+        assertEquals(Set.of("Job B", "Job C"), parents);
+        int jobA = idOf(graph, "Job A");
+        assertEquals(1, graph.getChildEnd(jobA) - graph.getChildStart(jobA));
+        assertEquals("Job C", graph.getJob(graph.getChild(graph.getChildStart(jobA))).getName());
+    }
+
+    @Test
+    void testLinesLongerThanTheBufferAreLoaded() throws IOException {
+        StringBuilder text = new StringBuilder();
+        StringBuilder sink = new StringBuilder("Sink");
+        for (int i = 0; i < 20_000; i++) {
+            text.append("Source").append(i).append('\n');
+            sink.append("\tSource").append(i);
+        }
+        text.append(sink);
+
+        JobGraph graph = JobGraphLoader.load(new StringReader(text.toString()), jobFactory);
+
+        assertEquals(20_001, graph.size());
+        assertEquals(20_000, graph.getRootCount());
+        assertEquals(20_000, graph.getParentCount(idOf(graph, "Sink")));
+    }
+
+    @Test
+    void testUndeclaredParentIsRejected() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> JobGraphLoader.load(new StringReader("Job A\tJob B\nJob B\n"), jobFactory));
+        assertTrue(exception.getMessage().startsWith("Line 1: parent Job B"));
+        assertThrows(IllegalArgumentException.class,
+                () -> JobGraphLoader.load(new StringReader("Job A\tJob A\n"), jobFactory));
+    }
+
+    @Test
+    void testDuplicateJobIsRejected() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> JobGraphLoader.load(new StringReader("Job A\nJob B\nJob A\n"), jobFactory));
+        assertEquals("Line 3: job Job A is declared twice", exception.getMessage());
+    }
+
+    private static List<String> names(JobGraph graph, int from, int to) {
+        List<String> names = new ArrayList<>();
+        for (int id = from; id < to; id++) {
+            names.add(graph.getJob(id).getName());
+        }
+        return names;
+    }
+
+    private static int idOf(JobGraph graph, String name) {
+        for (int id = 0; id < graph.size(); id++) {
+            if (graph.getJob(id).getName().equals(name)) {
+                return id;
+            }
+        }
+        throw new AssertionError(name + " not loaded");
+    }
+}
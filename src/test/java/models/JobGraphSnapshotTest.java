@@ -0,0 +1,108 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class JobGraphSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    private AtomicInteger createdJobs;
+    private Function<String, Job> jobFactory;
+
+    @BeforeEach
+    void setUp() {
+        createdJobs = new AtomicInteger();
+        jobFactory = name -> {
+            createdJobs.incrementAndGet();
+            return new Job(name, message -> { }, new Random(42));
+        };
+    }
+
+    @Test
+    void testLoadRestoresEdgesAndNames() throws IOException {
+        JobGraph graph = JobGraphLoader.load(new StringReader(
+                "Job A\nJob B\nJob C\tJob A\nJob D\tJob C\tJob B\nJob É\tJob D\n"), jobFactory);
+        Path path = tempDir.resolve("graph.snapshot");
+
+        JobGraphSnapshot.write(graph, path);
+        JobGraph loaded = JobGraphSnapshot.load(path, jobFactory);
+
+        assertEquals(graph.size(), loaded.size());
+        assertEquals(graph.getRootCount(), loaded.getRootCount());
+        for (int id = 0; id < graph.size(); id++) {
+            assertEquals(graph.getJob(id).getName(), loaded.getJob(id).getName());
+            assertEquals(graph.getParentStart(id), loaded.getParentStart(id));
+            assertEquals(graph.getParentEnd(id), loaded.getParentEnd(id));
+            assertEquals(graph.getChildStart(id), loaded.getChildStart(id));
+            assertEquals(graph.getChildEnd(id), loaded.getChildEnd(id));
+        }
+        for (int e = 0; e < graph.getChildEnd(graph.size() - 1); e++) {
+            assertEquals(graph.getParent(e), loaded.getParent(e));
+            assertEquals(graph.getChild(e), loaded.getChild(e));
+        }
+    }
+
+    @Test
+    void testJobsAreCreatedOnFirstUseAndKeepTheirIdentity() throws IOException {
+        Job jobA = new Job("JobA");
+        Job jobB = new Job("JobB", jobA);
+        Path path = tempDir.resolve("graph.snapshot");
+        JobGraphSnapshot.write(JobGraph.compile(List.of(jobA)), path);
+
+        JobGraph loaded = JobGraphSnapshot.load(path, jobFactory);
+
+        assertEquals(0, createdJobs.get(), "loading must not create jobs");
+        Job loadedB = loaded.getJob(1);
+        assertSame(loadedB, loaded.getJob(1));
+        assertEquals(1, createdJobs.get());
+        assertEquals(1, loaded.getId(loadedB));
+        assertEquals(-1, loaded.getId(jobB), "a job of the same name from elsewhere is not part of the graph");
+        assertEquals(-1, loaded.getId(new Job("JobC")));
+    }
+
+    @Test
+    void testEmptyGraphRoundTrips() throws IOException {
+        Path path = tempDir.resolve("empty.snapshot");
+
+        JobGraphSnapshot.write(JobGraph.compile(List.of()), path);
+        JobGraph loaded = JobGraphSnapshot.load(path, jobFactory);
+
+        assertEquals(0, loaded.size());
+        assertEquals(-1, loaded.getId(new Job("JobA")));
+    }
+
+    @Test
+    void testDuplicateNamesAreRejected() {
+        Job first = new Job("JobA");
+        new Job("JobA", first);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> JobGraphSnapshot.write(JobGraph.compile(List.of(first)), tempDir.resolve("graph.snapshot")));
+    }
+
+    @Test
+    void testTruncatedOrForeignFilesAreRejected() throws IOException {
+        Path path = tempDir.resolve("graph.snapshot");
+        JobGraphSnapshot.write(JobGraphLoader.load(new StringReader("JobA\nJobB\tJobA\n"), jobFactory), path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> JobGraphSnapshot.load(path, jobFactory));
+
+        Files.write(path, Arrays.copyOf(bytes, 16));
+        assertThrows(IOException.class, () -> JobGraphSnapshot.load(path, jobFactory));
+
+        Files.write(path, "JobA\nJobB\tJobA\n".getBytes());
+        assertThrows(IOException.class, () -> JobGraphSnapshot.load(path, jobFactory));
+    }
+}
@@ -0,0 +1,98 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+class JobGraphTest {
+    private Consumer<String> testLogger;
+    private Random deterministicRandom;
+
+    @BeforeEach
+    void setUp() {
+        testLogger = message -> { };
+        deterministicRandom = new Random(42);
+    }
+
+    @Test
+    void testCompileAssignsTopologicalIds() {
+        Job jobA = new Job("JobA", testLogger, deterministicRandom);
+        Job jobB = new Job("JobB", testLogger, deterministicRandom);
+        Job jobC = new Job("JobC", testLogger, deterministicRandom, jobA);
+        Job jobD = new Job("JobD", testLogger, deterministicRandom, jobB);
+        Job jobE = new Job("JobE", testLogger, deterministicRandom, jobC, jobD);
+
+        JobGraph graph = JobGraph.compile(Arrays.asList(jobA, jobB));
+
+        assertEquals(5, graph.size());
+        assertEquals(2, graph.getRootCount());
+        for (Job job : Arrays.asList(jobA, jobB, jobC, jobD, jobE)) {
+            int id = graph.getId(job);
+            assertSame(job, graph.getJob(id));
+            assertEquals(job.getParentJobs().size(), graph.getParentCount(id));
+            for (int e = graph.getChildStart(id); e < graph.getChildEnd(id); e++) {
+                assertTrue(graph.getChild(e) > id, "children must come after their parents");
+            }
+        }
+        assertTrue(graph.getId(jobA) < graph.getRootCount());
+        assertTrue(graph.getId(jobB) < graph.getRootCount());
+    }
+
+    @Test
+    void testCompileStoresChildrenAsEdges() {
+        Job parent = new Job("Parent", testLogger, deterministicRandom);
+        Job child1 = new Job("Child1", testLogger, deterministicRandom, parent);
+        Job child2 = new Job("Child2", testLogger, deterministicRandom, parent);
+
+        JobGraph graph = JobGraph.compile(Collections.singletonList(parent));
+        int parentId = graph.getId(parent);
+
+        Set<Job> children = new HashSet<>();
+        for (int e = graph.getChildStart(parentId); e < graph.getChildEnd(parentId); e++) {
+            children.add(graph.getJob(graph.getChild(e)));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(child1, child2)), children);
+        assertEquals(-1, graph.getId(new Job("Stranger", testLogger, deterministicRandom)));
+    }
+
+    @Test
+    void testCompileRejectsUnreachableParent() {
+        Job reachable = new Job("Reachable", testLogger, deterministicRandom);
+        Job hidden = new Job("Hidden", testLogger, deterministicRandom);
+        new Job("Child", testLogger, deterministicRandom, reachable, hidden);
+
+        assertThrows(IllegalArgumentException.class, () -> JobGraph.compile(Collections.singletonList(reachable)));
+    }
+
+    @Test
+    void testComputeCriticalPathLengths() {
+        Job jobA = new Job("JobA", testLogger, deterministicRandom);
+        Job jobB = new Job("JobB", testLogger, deterministicRandom, jobA);
+        Job jobC = new Job("JobC", testLogger, deterministicRandom, jobA);
+        Job jobD = new Job("JobD", testLogger, deterministicRandom, jobB, jobC);
+
+        JobGraph graph = JobGraph.compile(Collections.singletonList(jobA));
+        long[] costs = new long[graph.size()];
+        costs[graph.getId(jobA)] = 1;
+        costs[graph.getId(jobB)] = 10;
+        costs[graph.getId(jobC)] = 3;
+        costs[graph.getId(jobD)] = 5;
+
+        long[] lengths = graph.computeCriticalPathLengths(costs);
+
+        assertEquals(16, lengths[graph.getId(jobA)]);
+        assertEquals(15, lengths[graph.getId(jobB)]);
+        assertEquals(8, lengths[graph.getId(jobC)]);
+        assertEquals(5, lengths[graph.getId(jobD)]);
+    }
+
+    @Test
+    void testCompileEmptyGraph() {
+        JobGraph graph = JobGraph.compile(Collections.emptyList());
+
+        assertEquals(0, graph.size());
+        assertEquals(0, graph.getRootCount());
+    }
+}
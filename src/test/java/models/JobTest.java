@@ -4,8 +4,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 class JobTest {
@@ -27,7 +25,6 @@ class JobTest {
         assertEquals("TestJob", job.getName());
         assertTrue(job.getParentJobs().isEmpty());
         assertTrue(job.getChildrenJobs().isEmpty());
-        assertEquals(0, job.getLatch().getCount());
     }
 
     @Test
@@ -40,7 +37,6 @@ class JobTest {
         assertEquals(2, child.getParentJobs().size());
         assertTrue(child.getParentJobs().contains(parent1));
         assertTrue(child.getParentJobs().contains(parent2));
-        assertEquals(2, child.getLatch().getCount());
         
         // Check that child is added to parents' children lists
         assertTrue(parent1.getChildrenJobs().contains(child));
@@ -131,20 +127,17 @@ class JobTest {
     }
 
     @Test
-    void testCountDownLatchBehavior() throws InterruptedException {
-        Job parent1 = new Job("Parent1", testLogger, deterministicRandom);
-        Job parent2 = new Job("Parent2", testLogger, deterministicRandom);
-        Job child = new Job("Child", testLogger, deterministicRandom, parent1, parent2);
-        
-        assertEquals(2, child.getLatch().getCount());
-        
-        // Child should wait for parents
-        child.getLatch().countDown();
-        assertEquals(1, child.getLatch().getCount());
-        assertFalse(child.getLatch().await(10, TimeUnit.MILLISECONDS));
-        
-        child.getLatch().countDown();
-        assertEquals(0, child.getLatch().getCount());
-        assertTrue(child.getLatch().await(10, TimeUnit.MILLISECONDS));
+    void testJobRunsRepeatedlyWithoutChangingItsDefinition() {
+        Job parent = new Job("Parent", testLogger, deterministicRandom);
+        Job child = new Job("Child", testLogger, deterministicRandom, parent);
+        child.setSleepTimeMs(0);
+
+        child.run();
+        child.run();
+
+        assertEquals(Arrays.asList("Child started", "Child completed", "Child started", "Child completed"),
+                logMessages);
+        assertEquals(Arrays.asList(parent), child.getParentJobs());
+        assertEquals(Arrays.asList(child), parent.getChildrenJobs());
     }
-}
\ No newline at end of file
+}
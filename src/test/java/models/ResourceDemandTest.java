@@ -0,0 +1,29 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashMap;
+import java.util.Map;
+
+class ResourceDemandTest {
+
+    @Test
+    void testTokensAreCopied() {
+        Map<String, Integer> tokens = new HashMap<>();
+        tokens.put("db-connection", 1);
+        ResourceDemand demand = new ResourceDemand(2, 4, tokens);
+        tokens.put("db-connection", 5);
+
+        assertEquals(2, demand.getCpuSlots());
+        assertEquals(4, demand.getMemoryUnits());
+        assertEquals(Map.of("db-connection", 1), demand.getTokens());
+        assertThrows(UnsupportedOperationException.class, () -> demand.getTokens().put("gpu", 1));
+    }
+
+    @Test
+    void testNegativeAmountsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ResourceDemand(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ResourceDemand(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new ResourceDemand(0, 0, Map.of("gpu", -1)));
+    }
+}
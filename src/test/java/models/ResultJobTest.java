@@ -0,0 +1,47 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+class ResultJobTest {
+    private List<String> logMessages;
+    private Consumer<String> testLogger;
+
+    @BeforeEach
+    void setUp() {
+        logMessages = new ArrayList<>();
+        testLogger = logMessages::add;
+    }
+
+    @Test
+    void testComputeReadsParentResults() {
+        ResultJob<Integer> parent = new ResultJob<>("Parent", testLogger, inputs -> 20);
+        ResultJob<String> child = new ResultJob<>("Child", testLogger,
+                inputs -> "value=" + (inputs.get(parent) + 1), parent);
+
+        String result = child.compute(new JobInputs() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T get(ResultJob<T> parentJob) {
+                return (T) Integer.valueOf(20);
+            }
+        });
+
+        assertEquals("value=21", result);
+        assertEquals(Arrays.asList("Child started", "Child completed"), logMessages);
+        assertTrue(parent.getChildrenJobs().contains(child));
+    }
+
+    @Test
+    void testRunWithoutSchedulerComputesWithoutParentResults() {
+        ResultJob<Integer> parent = new ResultJob<>("Parent", testLogger, inputs -> 20);
+        ResultJob<Integer> child = new ResultJob<>("Child", testLogger, inputs -> inputs.get(parent) + 1, parent);
+
+        parent.run();
+        assertEquals(Arrays.asList("Parent started", "Parent completed"), logMessages);
+        assertThrows(IllegalStateException.class, child::run);
+    }
+}
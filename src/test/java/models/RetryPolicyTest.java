@@ -0,0 +1,44 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Random;
+
+class RetryPolicyTest {
+
+    @Test
+    void testBackoffDoublesUpToCap() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 0);
+        Random random = new Random(42);
+
+        assertEquals(100, policy.getBackoffMs(1, random));
+        assertEquals(200, policy.getBackoffMs(2, random));
+        assertEquals(400, policy.getBackoffMs(3, random));
+        assertEquals(800, policy.getBackoffMs(4, random));
+        assertEquals(1000, policy.getBackoffMs(5, random));
+        assertEquals(1000, policy.getBackoffMs(Integer.MAX_VALUE, random));
+    }
+
+    @Test
+    void testJitterStaysWithinRange() {
+        RetryPolicy policy = new RetryPolicy(5, 1000, 1000, 0.5);
+        Random random = new Random(42);
+
+        boolean varied = false;
+        long first = policy.getBackoffMs(1, random);
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.getBackoffMs(1, random);
+            assertTrue(delay >= 500 && delay <= 1000, "delay out of range: " + delay);
+            varied |= delay != first;
+        }
+        assertTrue(varied);
+    }
+
+    @Test
+    void testInvalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, 100, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(3, -1, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(3, 100, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(3, 100, 1000, 1.5));
+    }
+}
@@ -0,0 +1,59 @@
+package scheduler;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 32; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(32, histogram.getCount());
+        assertEquals(15.5, histogram.getMean(), 1e-9);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(15, histogram.getValueAtPercentile(50));
+        assertEquals(31, histogram.getMax());
+    }
+
+    @Test
+    void testLargeValuesStayWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = {1_000, 123_456, 9_876_543_210L, Long.MAX_VALUE};
+        for (long value : values) {
+            histogram.reset();
+            histogram.record(value);
+            long reported = histogram.getMax();
+            assertTrue(reported >= value, "reported " + reported + " for " + value);
+            assertTrue(reported - value <= value / 32, "reported " + reported + " for " + value);
+        }
+    }
+
+    @Test
+    void testBucketIndexIsMonotonic() {
+        int previous = -1;
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1, "gap at " + value);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+            previous = index;
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+
+        assertTrue(histogram.getValueAtPercentile(50) < 1_040);
+        assertTrue(histogram.getValueAtPercentile(99) < 1_040);
+        assertTrue(histogram.getValueAtPercentile(100) >= 1_000_000);
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+}
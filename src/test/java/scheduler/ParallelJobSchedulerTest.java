@@ -1,11 +1,31 @@
 package scheduler;
 
 import models.Job;
+import models.JobGraph;
+import models.JobGraphLoader;
+import models.JobGraphSnapshot;
+import models.ResourceDemand;
+import models.ResultJob;
+import models.RetryPolicy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringReader;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 class ParallelJobSchedulerTest {
@@ -164,6 +184,1531 @@ class ParallelJobSchedulerTest {
         assertEquals("SingleJob completed", messages.get(1));
     }
 
+    @Test
+    void testSingleWorkerIsNotParkedByJobsWaitingOnParents() throws InterruptedException {
+        ParallelJobScheduler scheduler = new ParallelJobScheduler(1);
+
+        // JobX is discovered before JobZ but depends on it, so a worker waiting on JobX would starve JobZ
+        Job jobA = new Job("JobA", testLogger, deterministicRandom);
+        Job jobY = new Job("JobY", testLogger, deterministicRandom, jobA);
+        Job jobZ = new Job("JobZ", testLogger, deterministicRandom, jobY);
+        Job jobX = new Job("JobX", testLogger, deterministicRandom, jobA, jobZ);
+        Arrays.asList(jobA, jobX, jobY, jobZ).forEach(job -> job.setSleepTimeMs(10));
+
+        // A parked worker would never finish the run, so the bound only keeps the test from hanging
+        DagRun run = scheduler.submit(Arrays.asList(jobA));
+        assertTrue(run.await(30, TimeUnit.SECONDS));
+
+        List<String> messages = new ArrayList<>(executionOrder);
+        assertEquals(8, messages.size());
+        verifyJobExecutedBeforeJob(messages, "JobA", "JobY");
+        verifyJobExecutedBeforeJob(messages, "JobY", "JobZ");
+        verifyJobExecutedBeforeJob(messages, "JobZ", "JobX");
+    }
+
+    @Test
+    void testCycleDetectionReportsCyclePath() {
+        Job jobA = new Job("JobA", testLogger, deterministicRandom);
+        Job jobB = new Job("JobB", testLogger, deterministicRandom, jobA);
+        Job jobC = new Job("JobC", testLogger, deterministicRandom, jobB);
+        Job jobD = new Job("JobD", testLogger, deterministicRandom, jobC);
+        jobB.getParentJobs().add(jobD);
+
+        ParallelJobScheduler scheduler = new ParallelJobScheduler(2);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            scheduler.scheduleAllJobs(Arrays.asList(jobA));
+        });
+        assertTrue(exception.getMessage().startsWith("Cycle detected in job dependencies"));
+        assertTrue(exception.getMessage().endsWith("JobB -> JobC -> JobD -> JobB"), exception.getMessage());
+        assertTrue(executionOrder.isEmpty());
+    }
+
+    @Test
+    void testLongChainDoesNotOverflowStack() {
+        ParallelJobScheduler scheduler = new ParallelJobScheduler(2);
+        List<String> completed = Collections.synchronizedList(new ArrayList<>());
+        Consumer<String> chainLogger = message -> {
+            if (message.endsWith("completed")) {
+                completed.add(message);
+            }
+        };
+
+        Job first = new Job("Chain0", chainLogger, deterministicRandom);
+        first.setSleepTimeMs(0);
+        Job previous = first;
+        for (int i = 1; i < 50_000; i++) {
+            Job job = new Job("Chain" + i, chainLogger, deterministicRandom, previous);
+            job.setSleepTimeMs(0);
+            previous = job;
+        }
+
+        scheduler.scheduleAllJobs(Arrays.asList(first));
+
+        assertEquals(50_000, completed.size());
+        assertEquals("Chain0 completed", completed.get(0));
+        assertEquals("Chain49999 completed", completed.get(49_999));
+    }
+
+    @Test
+    void testSchedulerRunsManyDagsOnTheSameWorkers() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            Set<String> workerNames = ConcurrentHashMap.newKeySet();
+            List<DagRun> runs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Job parent = new Job("Parent" + i, message -> workerNames.add(Thread.currentThread().getName()),
+                        deterministicRandom);
+                Job child = new Job("Child" + i, testLogger, deterministicRandom, parent);
+                parent.setSleepTimeMs(5);
+                child.setSleepTimeMs(5);
+                runs.add(scheduler.submit(Arrays.asList(parent)));
+            }
+
+            for (DagRun run : runs) {
+                assertTrue(run.await(5, TimeUnit.SECONDS));
+                assertTrue(run.isDone());
+            }
+            assertEquals(20, executionOrder.size()); // 10 children * 2 messages each
+            assertTrue(workerNames.size() <= 2, "runs should share the scheduler's two workers");
+        }
+    }
+
+    @Test
+    void testInjectedExecutorIsNotShutDownOnClose() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Job job = new Job("InjectedJob", testLogger, deterministicRandom);
+            job.setSleepTimeMs(10);
+
+            try (ParallelJobScheduler scheduler = new ParallelJobScheduler(executor)) {
+                scheduler.scheduleAllJobs(Arrays.asList(job));
+            }
+
+            assertFalse(executor.isShutdown());
+            assertEquals(2, executionOrder.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSubmitAfterCloseThrows() {
+        ParallelJobScheduler scheduler = new ParallelJobScheduler(1);
+        scheduler.close();
+
+        Job job = new Job("LateJob", testLogger, deterministicRandom);
+        assertThrows(IllegalStateException.class, () -> scheduler.submit(Arrays.asList(job)));
+    }
+
+    @Test
+    void testCancelSkipsJobsThatHaveNotStarted() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            Job slowJob = new Job("SlowJob", testLogger, deterministicRandom);
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, slowJob);
+            slowJob.setSleepTimeMs(5000);
+            childJob.setSleepTimeMs(10);
+
+            DagRun run = scheduler.submit(Arrays.asList(slowJob));
+            Thread.sleep(50);
+            run.cancel();
+
+            assertTrue(run.await(1, TimeUnit.SECONDS));
+            assertTrue(run.isCancelled());
+            assertFalse(executionOrder.contains("ChildJob started"));
+        }
+    }
+
+    @Test
+    void testSubmitReturnsBeforeJobsComplete() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            Job jobA = new Job("JobA", testLogger, deterministicRandom);
+            Job jobB = new Job("JobB", testLogger, deterministicRandom, jobA);
+            jobA.setSleepTimeMs(100);
+            jobB.setSleepTimeMs(10);
+
+            DagRun run = scheduler.submit(Arrays.asList(jobA));
+            assertFalse(run.getCompletionFuture().isDone());
+
+            CompletableFuture<String> composed = run.getJobFuture(jobA)
+                    .thenApply(ignored -> "after " + jobA.getName());
+            assertEquals("after JobA", composed.get(5, TimeUnit.SECONDS));
+
+            run.getCompletionFuture().get(5, TimeUnit.SECONDS);
+            assertTrue(run.isDone());
+            assertTrue(run.getJobFuture(jobB).isDone());
+            assertEquals(JobStatus.SUCCEEDED, run.getJobStatus(jobB));
+            assertEquals(4, executionOrder.size());
+        }
+    }
+
+    @Test
+    void testCompletionFutureOfEmptyRunIsDone() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            DagRun run = scheduler.submit(new ArrayList<>());
+
+            assertTrue(run.getCompletionFuture().isDone());
+            assertTrue(run.isDone());
+        }
+    }
+
+    @Test
+    void testCancelledRunCompletesFuturesExceptionally() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            Job slowJob = new Job("SlowJob", testLogger, deterministicRandom);
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, slowJob);
+            slowJob.setSleepTimeMs(5000);
+
+            DagRun run = scheduler.submit(Arrays.asList(slowJob));
+            CompletableFuture<Void> childFuture = run.getJobFuture(childJob);
+            Thread.sleep(50);
+            run.cancel();
+
+            assertTrue(run.await(1, TimeUnit.SECONDS));
+            assertTrue(run.getCompletionFuture().isCancelled());
+            assertTrue(childFuture.isCancelled());
+            assertEquals(JobStatus.CANCELLED, run.getJobStatus(slowJob));
+            assertEquals(JobStatus.CANCELLED, run.getJobStatus(childJob));
+        }
+    }
+
+    @Test
+    void testJobFutureRejectsJobOutsideRun() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            Job job = new Job("Job", testLogger, deterministicRandom);
+            job.setSleepTimeMs(0);
+            DagRun run = scheduler.submit(Arrays.asList(job));
+
+            Job stranger = new Job("Stranger", testLogger, deterministicRandom);
+            assertThrows(IllegalArgumentException.class, () -> run.getJobFuture(stranger));
+        }
+    }
+
+    @Test
+    void testVirtualThreadsRunWideFanOutConcurrently() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = ParallelJobScheduler.withVirtualThreads()) {
+            AtomicInteger completed = new AtomicInteger();
+            Consumer<String> countingLogger = message -> {
+                if (message.endsWith("completed")) {
+                    completed.incrementAndGet();
+                }
+            };
+            Job root = new Job("Root", countingLogger, deterministicRandom);
+            root.setSleepTimeMs(0);
+            for (int i = 0; i < 10_000; i++) {
+                Job child = new Job("Child" + i, countingLogger, deterministicRandom, root);
+                child.setSleepTimeMs(200);
+            }
+
+            long startTime = System.currentTimeMillis();
+            DagRun run = scheduler.submit(Arrays.asList(root));
+            assertTrue(run.await(30, TimeUnit.SECONDS));
+            long endTime = System.currentTimeMillis();
+
+            assertEquals(10_001, completed.get());
+            // 10,000 sleeps of 200ms would take over 8 minutes on 4 platform threads
+            assertTrue(endTime - startTime < 10_000, "fan-out level should sleep concurrently");
+        }
+    }
+
+    @Test
+    void testVirtualThreadsRespectConcurrencyLimit() {
+        try (ParallelJobScheduler scheduler = ParallelJobScheduler.withVirtualThreads(3)) {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            Consumer<String> concurrencyLogger = message -> {
+                if (message.endsWith("started")) {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                } else if (message.endsWith("completed")) {
+                    running.decrementAndGet();
+                }
+            };
+            Job root = new Job("Root", concurrencyLogger, deterministicRandom);
+            root.setSleepTimeMs(0);
+            for (int i = 0; i < 20; i++) {
+                Job child = new Job("Child" + i, concurrencyLogger, deterministicRandom, root);
+                child.setSleepTimeMs(20);
+            }
+
+            scheduler.scheduleAllJobs(Arrays.asList(root));
+
+            assertEquals(0, running.get());
+            assertTrue(maxRunning.get() <= 3, "at most 3 jobs may run at once, saw " + maxRunning.get());
+        }
+    }
+
+    @Test
+    void testCriticalPathPriorityStartsLongestChainFirst() {
+        try (ParallelJobScheduler scheduler = ParallelJobScheduler.withCriticalPathPriority(2)) {
+            Job root = new Job("Root", testLogger, deterministicRandom);
+            root.setSleepTimeMs(0);
+            List<Job> allJobs = new ArrayList<>(Arrays.asList(root));
+            // Leaves are declared first, so FIFO order would run them all before the chain
+            for (int i = 1; i <= 4; i++) {
+                allJobs.add(new Job("Leaf" + i, testLogger, deterministicRandom, root));
+            }
+            Job chain1 = new Job("Chain1", testLogger, deterministicRandom, root);
+            Job chain2 = new Job("Chain2", testLogger, deterministicRandom, chain1);
+            Job chain3 = new Job("Chain3", testLogger, deterministicRandom, chain2);
+            allJobs.addAll(Arrays.asList(chain1, chain2, chain3));
+            for (Job job : allJobs.subList(1, allJobs.size())) {
+                job.setSleepTimeMs(50);
+                job.setEstimatedCostMs(50);
+            }
+
+            scheduler.scheduleAllJobs(Arrays.asList(root));
+
+            List<String> messages = new ArrayList<>(executionOrder);
+            assertEquals(16, messages.size());
+            assertTrue(messages.indexOf("Chain1 started") < messages.indexOf("Leaf3 started"));
+            assertTrue(messages.indexOf("Chain1 started") < messages.indexOf("Leaf4 started"));
+            verifyJobExecutedBeforeJob(messages, "Chain1", "Chain2");
+            verifyJobExecutedBeforeJob(messages, "Chain2", "Chain3");
+        }
+    }
+
+    @Test
+    void testResultsArePassedAlongEdges() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            ResultJob<Integer> left = new ResultJob<>("Left", testLogger, inputs -> 2);
+            ResultJob<Integer> right = new ResultJob<>("Right", testLogger, inputs -> 3);
+            ResultJob<Integer> product = new ResultJob<>("Product", testLogger,
+                    inputs -> inputs.get(left) * inputs.get(right), left, right);
+            ResultJob<String> report = new ResultJob<>("Report", testLogger,
+                    inputs -> "product=" + inputs.get(product), product);
+
+            DagRun run = scheduler.submit(Arrays.asList(left, right));
+
+            assertEquals("product=6", run.getJobFuture(report).get(5, TimeUnit.SECONDS));
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            verifyJobExecutedBeforeJob(new ArrayList<>(executionOrder), "Product", "Report");
+        }
+    }
+
+    @Test
+    void testResultIsReleasedOnceChildrenHaveRead() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            ResultJob<int[]> producer = new ResultJob<>("Producer", testLogger, inputs -> new int[1_000_000]);
+            ResultJob<Integer> consumer = new ResultJob<>("Consumer", testLogger,
+                    inputs -> inputs.get(producer).length, producer);
+
+            DagRun run = scheduler.submit(Arrays.asList(producer));
+            assertEquals(1_000_000, run.getJobFuture(consumer).get(5, TimeUnit.SECONDS));
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+
+            // Nobody asked for the producer's result before the consumer read it, so the run no longer holds it
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> run.getJobFuture(producer).get(1, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void testResultIsNotKeptWhenEveryChildFinishedBeforeIt() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            CountDownLatch childSkipped = new CountDownLatch(1);
+            ResultJob<int[]> producer = new ResultJob<>("Producer", testLogger, inputs -> {
+                try {
+                    childSkipped.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new int[1_000_000];
+            });
+            ResultJob<Void> failingJob = new ResultJob<>("FailingJob", testLogger, inputs -> {
+                throw new IllegalStateException("boom");
+            });
+            ResultJob<Integer> consumer = new ResultJob<>("Consumer", testLogger,
+                    inputs -> inputs.get(producer).length, producer, failingJob);
+
+            DagRun run = scheduler.submit(Arrays.asList(producer, failingJob));
+            try {
+                // The only reader is skipped while the producer is still running
+                assertThrows(CancellationException.class, () -> run.getJobFuture(consumer).get(5, TimeUnit.SECONDS));
+            } finally {
+                childSkipped.countDown();
+            }
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+
+            assertEquals(JobStatus.SUCCEEDED, run.getJobStatus(producer));
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> run.getJobFuture(producer).get(1, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void testJobTimeoutSkipsDescendantsAndKeepsIndependentBranches() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            Job hungJob = new Job("HungJob", testLogger, deterministicRandom);
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, hungJob);
+            Job grandchildJob = new Job("GrandchildJob", testLogger, deterministicRandom, childJob);
+            Job independentJob = new Job("IndependentJob", testLogger, deterministicRandom);
+            // Would outlast the awaits below by far if the timeout did not interrupt it
+            hungJob.setSleepTimeMs(600_000);
+            hungJob.setTimeoutMs(100);
+            childJob.setSleepTimeMs(10);
+            grandchildJob.setSleepTimeMs(10);
+            independentJob.setSleepTimeMs(200);
+
+            DagRun run = scheduler.submit(Arrays.asList(hungJob, independentJob));
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> run.getJobFuture(hungJob).get(30, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, failure.getCause());
+            assertTrue(run.await(30, TimeUnit.SECONDS), "timed out job should not hold up the run");
+
+            assertEquals(JobStatus.TIMED_OUT, run.getJobStatus(hungJob));
+            assertEquals(JobStatus.SKIPPED, run.getJobStatus(childJob));
+            assertEquals(JobStatus.SKIPPED, run.getJobStatus(grandchildJob));
+            assertEquals(JobStatus.SUCCEEDED, run.getJobStatus(independentJob));
+            assertFalse(executionOrder.contains("ChildJob started"));
+            assertInstanceOf(TimeoutException.class, assertThrows(ExecutionException.class,
+                    () -> run.getCompletionFuture().get()).getCause());
+        }
+    }
+
+    @Test
+    void testDefaultJobTimeoutAppliesUnlessJobOverridesIt() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setJobTimeoutMs(100);
+            Job slowJob = new Job("SlowJob", testLogger, deterministicRandom);
+            Job exemptJob = new Job("ExemptJob", testLogger, deterministicRandom);
+            slowJob.setSleepTimeMs(5000);
+            exemptJob.setSleepTimeMs(300);
+            exemptJob.setTimeoutMs(0);
+
+            DagRun run = scheduler.submit(Arrays.asList(slowJob, exemptJob));
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.TIMED_OUT, run.getJobStatus(slowJob));
+            assertEquals(JobStatus.SUCCEEDED, run.getJobStatus(exemptJob));
+        }
+    }
+
+    @Test
+    void testRunDeadlineCancelsRunWithoutWaitingForStuckJob() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setRunTimeoutMs(100);
+            CountDownLatch release = new CountDownLatch(1);
+            // Ignores interrupts, like a job blocked in uninterruptible I/O
+            ResultJob<Void> stuckJob = new ResultJob<>("StuckJob", testLogger, inputs -> {
+                while (release.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                return null;
+            });
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, stuckJob);
+            childJob.setSleepTimeMs(10);
+
+            DagRun run = scheduler.submit(Arrays.asList(stuckJob));
+            try {
+                assertTrue(run.await(5, TimeUnit.SECONDS));
+                assertTrue(run.isCancelled());
+                assertEquals(JobStatus.CANCELLED, run.getJobStatus(stuckJob));
+                assertEquals(JobStatus.CANCELLED, run.getJobStatus(childJob));
+                assertInstanceOf(TimeoutException.class, assertThrows(ExecutionException.class,
+                        () -> run.getCompletionFuture().get()).getCause());
+            } finally {
+                release.countDown();
+            }
+            assertFalse(executionOrder.contains("ChildJob started"));
+        }
+    }
+
+    @Test
+    void testJobThrowingOnInterruptAfterTimeoutKeepsTimeoutAsCause() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setJobTimeoutMs(50);
+            for (int round = 0; round < 20; round++) {
+                // Throws as soon as the timeout interrupts it, racing the timer to account for the job
+                ResultJob<Void> slowJob = new ResultJob<>("SlowJob" + round, testLogger, inputs -> {
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException("interrupted", e);
+                    }
+                    return null;
+                });
+                Job childJob = new Job("ChildJob" + round, testLogger, deterministicRandom, slowJob);
+
+                DagRun run = scheduler.submit(Arrays.asList(slowJob));
+
+                assertTrue(run.await(5, TimeUnit.SECONDS));
+                assertEquals(JobStatus.TIMED_OUT, run.getJobStatus(slowJob));
+                assertEquals(JobStatus.SKIPPED, run.getJobStatus(childJob));
+                assertInstanceOf(TimeoutException.class, run.getSummary().getFailure(slowJob));
+                assertInstanceOf(TimeoutException.class, assertThrows(ExecutionException.class,
+                        () -> run.getJobFuture(slowJob).get()).getCause());
+            }
+        }
+    }
+
+    @Test
+    void testNegativeTimeoutsAreRejected() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            assertThrows(IllegalArgumentException.class, () -> scheduler.setRunTimeoutMs(-1));
+            assertThrows(IllegalArgumentException.class, () -> scheduler.setJobTimeoutMs(-1));
+        }
+    }
+
+    @Test
+    void testContinueOnErrorSkipsOnlyDescendantsOfFailedJob() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setFailurePolicy(FailurePolicy.CONTINUE_ON_ERROR);
+            IllegalStateException boom = new IllegalStateException("boom");
+            ResultJob<Void> failingJob = new ResultJob<>("FailingJob", testLogger, inputs -> {
+                throw boom;
+            });
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, failingJob);
+            Job independentJob = new Job("IndependentJob", testLogger, deterministicRandom);
+            Job independentChild = new Job("IndependentChild", testLogger, deterministicRandom, independentJob);
+            childJob.setSleepTimeMs(10);
+            independentJob.setSleepTimeMs(100);
+            independentChild.setSleepTimeMs(10);
+
+            DagRun run = scheduler.submit(Arrays.asList(failingJob, independentJob));
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> run.getCompletionFuture().get());
+            assertSame(boom, failure.getCause());
+            assertSame(boom, assertThrows(ExecutionException.class,
+                    () -> run.getJobFuture(failingJob).get()).getCause());
+
+            RunSummary summary = run.getSummary();
+            assertEquals(JobStatus.FAILED, summary.getStatus(failingJob));
+            assertEquals(JobStatus.SKIPPED, summary.getStatus(childJob));
+            assertEquals(JobStatus.SUCCEEDED, summary.getStatus(independentJob));
+            assertEquals(JobStatus.SUCCEEDED, summary.getStatus(independentChild));
+            assertSame(boom, summary.getFailure(failingJob));
+            assertNull(summary.getFailure(childJob));
+            assertEquals(2, summary.getCount(JobStatus.SUCCEEDED));
+            assertEquals(Collections.singletonList(childJob), summary.getJobs(JobStatus.SKIPPED));
+            assertFalse(summary.isSuccessful());
+            assertTrue(summary.toString().startsWith("2 SUCCEEDED, 1 FAILED, 1 SKIPPED"));
+            assertTrue(summary.toString().contains("FailingJob FAILED: java.lang.IllegalStateException: boom"));
+            assertFalse(executionOrder.contains("ChildJob started"));
+        }
+    }
+
+    @Test
+    void testFailFastCancelsOutstandingJobs() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setFailurePolicy(FailurePolicy.FAIL_FAST);
+            ResultJob<Void> failingJob = new ResultJob<>("FailingJob", testLogger, inputs -> {
+                throw new IllegalStateException("boom");
+            });
+            Job slowJob = new Job("SlowJob", testLogger, deterministicRandom);
+            Job slowChild = new Job("SlowChild", testLogger, deterministicRandom, slowJob);
+            // Would outlast the await below by far if the failure did not cancel it
+            slowJob.setSleepTimeMs(600_000);
+            slowChild.setSleepTimeMs(10);
+
+            DagRun run = scheduler.submit(Arrays.asList(failingJob, slowJob));
+
+            assertTrue(run.await(30, TimeUnit.SECONDS), "fail-fast should not wait for SlowJob");
+            assertTrue(run.isCancelled());
+            RunSummary summary = run.getSummary();
+            assertEquals(JobStatus.FAILED, summary.getStatus(failingJob));
+            assertEquals(JobStatus.CANCELLED, summary.getStatus(slowJob));
+            assertEquals(JobStatus.CANCELLED, summary.getStatus(slowChild));
+            assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class,
+                    () -> run.getCompletionFuture().get()).getCause());
+        }
+    }
+
+    @Test
+    void testScheduleAllJobsReturnsSummaryWhenJobThrows() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            ResultJob<Void> failingJob = new ResultJob<>("FailingJob", testLogger, inputs -> {
+                throw new IllegalStateException("boom");
+            });
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, failingJob);
+
+            RunSummary summary = scheduler.scheduleAllJobs(Arrays.asList(failingJob));
+
+            assertEquals(JobStatus.FAILED, summary.getStatus(failingJob));
+            assertEquals(JobStatus.SKIPPED, summary.getStatus(childJob));
+        }
+    }
+
+    @Test
+    void testRetryReleasesChildrenOnlyAfterSuccessfulAttempt() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            Queue<String> events = new ConcurrentLinkedQueue<>();
+            List<Long> attemptNanos = Collections.synchronizedList(new ArrayList<>());
+            ResultJob<String> flakyJob = new ResultJob<>("FlakyJob", testLogger, inputs -> {
+                attemptNanos.add(System.nanoTime());
+                events.add("FlakyJob attempt " + attemptNanos.size());
+                if (attemptNanos.size() < 3) {
+                    throw new IllegalStateException("transient");
+                }
+                return "ok";
+            });
+            flakyJob.setRetryPolicy(new RetryPolicy(3, 300, 1000, 0));
+            ResultJob<String> childJob = new ResultJob<>("ChildJob", testLogger, inputs -> {
+                events.add("ChildJob");
+                return inputs.get(flakyJob) + "!";
+            }, flakyJob);
+            ResultJob<Void> independentJob = new ResultJob<>("IndependentJob", testLogger, inputs -> {
+                events.add("IndependentJob");
+                return null;
+            });
+
+            DagRun run = scheduler.submit(Arrays.asList(flakyJob, independentJob));
+
+            assertEquals("ok!", run.getJobFuture(childJob).get(30, TimeUnit.SECONDS));
+            assertTrue(run.await(30, TimeUnit.SECONDS));
+            // The only worker is free during the backoff, so the independent job does not wait for the retries
+            assertEquals(Arrays.asList("FlakyJob attempt 1", "IndependentJob", "FlakyJob attempt 2",
+                    "FlakyJob attempt 3", "ChildJob"), new ArrayList<>(events));
+            // The timer never fires early, so each gap is at least its backoff however loaded the machine is
+            assertTrue(attemptNanos.get(1) - attemptNanos.get(0) >= TimeUnit.MILLISECONDS.toNanos(300));
+            assertTrue(attemptNanos.get(2) - attemptNanos.get(1) >= TimeUnit.MILLISECONDS.toNanos(600));
+            assertEquals(3, run.getAttempts(flakyJob));
+            assertEquals(1, run.getAttempts(childJob));
+            assertTrue(run.getSummary().isSuccessful());
+        }
+    }
+
+    @Test
+    void testRetriesExhaustedFailsJob() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            ResultJob<Void> failingJob = new ResultJob<>("FailingJob", testLogger, inputs -> {
+                throw new IllegalStateException("permanent");
+            });
+            failingJob.setRetryPolicy(new RetryPolicy(3, 0, 0, 0));
+            Job childJob = new Job("ChildJob", testLogger, deterministicRandom, failingJob);
+
+            DagRun run = scheduler.submit(Arrays.asList(failingJob));
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            RunSummary summary = run.getSummary();
+            assertEquals(JobStatus.FAILED, summary.getStatus(failingJob));
+            assertEquals(3, summary.getAttempts(failingJob));
+            assertEquals(JobStatus.SKIPPED, summary.getStatus(childJob));
+            assertEquals(0, summary.getAttempts(childJob));
+            assertTrue(summary.toString().contains("FailingJob FAILED after 3 attempts"));
+        }
+    }
+
+    @Test
+    void testListenersReceiveJobAndRunMetrics() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            MetricsRecorder recorder = new MetricsRecorder();
+            List<RunMetrics> runMetrics = new ArrayList<>();
+            Map<String, Long> releasedAt = new ConcurrentHashMap<>();
+            scheduler.addListener(recorder);
+            scheduler.addListener(new SchedulerListener() {
+                @Override
+                public void onJobExecuted(DagRun run, Job job, JobStatus status, long releasedAtNanos,
+                                          long queueWaitNanos, long runNanos) {
+                    releasedAt.put(job.getName(), releasedAtNanos);
+                }
+
+                @Override
+                public void onRunFinished(RunMetrics metrics) {
+                    runMetrics.add(metrics);
+                }
+            });
+
+            Job jobA = new Job("JobA", testLogger, deterministicRandom);
+            Job jobB = new Job("JobB", testLogger, deterministicRandom, jobA);
+            Job jobC = new Job("JobC", testLogger, deterministicRandom, jobA);
+            Job jobD = new Job("JobD", testLogger, deterministicRandom, jobB, jobC);
+            jobA.setSleepTimeMs(50);
+            jobB.setSleepTimeMs(100);
+            jobC.setSleepTimeMs(10);
+            jobD.setSleepTimeMs(50);
+
+            DagRun run = scheduler.submit(Arrays.asList(jobA));
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+
+            assertEquals(4, recorder.getJobAttempts());
+            assertEquals(4, recorder.getJobsSucceeded());
+            assertEquals(1, recorder.getRuns());
+            assertEquals(4, recorder.getJobRunNanos().getCount());
+            assertTrue(recorder.getJobRunNanos().getMax() >= TimeUnit.MILLISECONDS.toNanos(100));
+
+            // JobD is released by its slower parent, JobB
+            assertTrue(releasedAt.get("JobB") >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertTrue(releasedAt.get("JobD") >= TimeUnit.MILLISECONDS.toNanos(150));
+
+            assertEquals(1, runMetrics.size());
+            RunMetrics metrics = runMetrics.get(0);
+            assertSame(run, metrics.getRun());
+            long criticalPathMs = TimeUnit.NANOSECONDS.toMillis(metrics.getCriticalPathNanos());
+            assertTrue(criticalPathMs >= 200, "critical path was " + criticalPathMs);
+            assertTrue(metrics.getWallNanos() >= metrics.getCriticalPathNanos());
+            assertTrue(metrics.getBusyNanos() >= TimeUnit.MILLISECONDS.toNanos(210));
+            assertTrue(metrics.getMaxReadyQueueDepth() >= 1);
+            assertTrue(metrics.getUtilization() > 0 && metrics.getUtilization() <= 1);
+        }
+    }
+
+    @Test
+    void testWorkStealingRunsDependentJobs() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = ParallelJobScheduler.withWorkStealing(2)) {
+            Job jobA = new Job("JobA", testLogger, deterministicRandom);
+            Job jobB = new Job("JobB", testLogger, deterministicRandom, jobA);
+            Job jobC = new Job("JobC", testLogger, deterministicRandom, jobA);
+            Job jobD = new Job("JobD", testLogger, deterministicRandom, jobB, jobC);
+            Job previous = jobD;
+            for (int i = 0; i < 10_000; i++) {
+                previous = new Job("Chain" + i, message -> { }, deterministicRandom, previous);
+                previous.setSleepTimeMs(0);
+            }
+            jobA.setSleepTimeMs(10);
+            jobB.setSleepTimeMs(10);
+            jobC.setSleepTimeMs(10);
+            jobD.setSleepTimeMs(10);
+
+            DagRun run = scheduler.submit(Arrays.asList(jobA));
+
+            assertTrue(run.await(10, TimeUnit.SECONDS));
+            assertTrue(run.getSummary().isSuccessful());
+            List<String> messages = new ArrayList<>(executionOrder);
+            verifyJobExecutedBeforeJob(messages, "JobA", "JobB");
+            verifyJobExecutedBeforeJob(messages, "JobA", "JobC");
+            verifyJobExecutedBeforeJob(messages, "JobB", "JobD");
+            verifyJobExecutedBeforeJob(messages, "JobC", "JobD");
+        }
+    }
+
+    @Test
+    void testIncrementalRunReExecutesOnlyChangedJobsAndDescendants() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setResultCache(new ResultCache(100));
+            Map<String, AtomicInteger> runs = new ConcurrentHashMap<>();
+            ResultJob<Integer> source = new ResultJob<>("Source", testLogger, inputs -> {
+                runs.computeIfAbsent("Source", name -> new AtomicInteger()).incrementAndGet();
+                return 20;
+            });
+            ResultJob<Integer> other = new ResultJob<>("Other", testLogger, inputs -> {
+                runs.computeIfAbsent("Other", name -> new AtomicInteger()).incrementAndGet();
+                return 1;
+            });
+            ResultJob<Integer> sum = new ResultJob<>("Sum", testLogger, inputs -> {
+                runs.computeIfAbsent("Sum", name -> new AtomicInteger()).incrementAndGet();
+                return inputs.get(source) + inputs.get(other);
+            }, source, other);
+            source.setInputFingerprint("source-v1");
+            other.setInputFingerprint("other-v1");
+            sum.setInputFingerprint("sum-v1");
+
+            DagRun first = scheduler.submit(Arrays.asList(source, other));
+            CompletableFuture<Integer> firstSum = first.getJobFuture(sum);
+            assertEquals(21, firstSum.get(5, TimeUnit.SECONDS));
+
+            DagRun unchanged = scheduler.submit(Arrays.asList(source, other));
+            CompletableFuture<Integer> unchangedSum = unchanged.getJobFuture(sum);
+            assertEquals(21, unchangedSum.get(5, TimeUnit.SECONDS));
+            assertTrue(unchanged.await(5, TimeUnit.SECONDS));
+            assertEquals(3, unchanged.getSummary().getCount(JobStatus.CACHED));
+            assertTrue(unchanged.getSummary().isSuccessful());
+
+            source.setInputFingerprint("source-v2");
+            DagRun changed = scheduler.submit(Arrays.asList(source, other));
+            assertEquals(21, changed.getJobFuture(sum).get(5, TimeUnit.SECONDS));
+            assertTrue(changed.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.SUCCEEDED, changed.getJobStatus(source));
+            assertEquals(JobStatus.CACHED, changed.getJobStatus(other));
+            // Downstream of a dirty job, so it runs even though its own fingerprint is unchanged
+            assertEquals(JobStatus.SUCCEEDED, changed.getJobStatus(sum));
+
+            assertEquals(2, runs.get("Source").get());
+            assertEquals(1, runs.get("Other").get());
+            assertEquals(2, runs.get("Sum").get());
+        }
+    }
+
+    @Test
+    void testChildFailingAfterParentChangedIsNotCachedInTheNextRun() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setResultCache(new ResultCache(100));
+            AtomicInteger input = new AtomicInteger(1);
+            AtomicBoolean broken = new AtomicBoolean();
+            AtomicInteger childRuns = new AtomicInteger();
+            ResultJob<Integer> parent = new ResultJob<>("Parent", testLogger, inputs -> input.get());
+            ResultJob<Integer> child = new ResultJob<>("Child", testLogger, inputs -> {
+                childRuns.incrementAndGet();
+                if (broken.get()) {
+                    throw new IllegalStateException("broken");
+                }
+                return inputs.get(parent) * 10;
+            }, parent);
+            parent.setInputFingerprint("parent-v1");
+            child.setInputFingerprint("child-v1");
+
+            DagRun first = scheduler.submit(Arrays.asList(parent));
+            assertEquals(10, first.getJobFuture(child).get(5, TimeUnit.SECONDS));
+
+            input.set(2);
+            parent.setInputFingerprint("parent-v2");
+            broken.set(true);
+            DagRun failed = scheduler.submit(Arrays.asList(parent));
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.SUCCEEDED, failed.getJobStatus(parent));
+            assertEquals(JobStatus.FAILED, failed.getJobStatus(child));
+
+            broken.set(false);
+            DagRun rerun = scheduler.submit(Arrays.asList(parent));
+            CompletableFuture<Integer> rerunChild = rerun.getJobFuture(child);
+            assertTrue(rerun.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.CACHED, rerun.getJobStatus(parent));
+            // The cached outcome of the first run was computed from the parent's old input
+            assertEquals(JobStatus.SUCCEEDED, rerun.getJobStatus(child));
+            assertEquals(20, rerunChild.get(5, TimeUnit.SECONDS));
+            assertEquals(3, childRuns.get());
+        }
+    }
+
+    @Test
+    void testResultReleasedBeforeItWasStoredIsStillCached() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            scheduler.setResultCache(new ResultCache(100));
+            CountDownLatch childSkipped = new CountDownLatch(1);
+            AtomicBoolean broken = new AtomicBoolean(true);
+            ResultJob<Integer> producer = new ResultJob<>("Producer", testLogger, inputs -> {
+                try {
+                    childSkipped.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 42;
+            });
+            ResultJob<Void> flakyJob = new ResultJob<>("FlakyJob", testLogger, inputs -> {
+                if (broken.get()) {
+                    throw new IllegalStateException("boom");
+                }
+                return null;
+            });
+            ResultJob<Integer> consumer = new ResultJob<>("Consumer", testLogger,
+                    inputs -> inputs.get(producer) + 1, producer, flakyJob);
+            producer.setInputFingerprint("producer-v1");
+            flakyJob.setInputFingerprint("flaky-v1");
+            consumer.setInputFingerprint("consumer-v1");
+
+            DagRun first = scheduler.submit(Arrays.asList(producer, flakyJob));
+            try {
+                // The only reader is skipped while the producer is still running, so its slot is released
+                assertThrows(CancellationException.class, () -> first.getJobFuture(consumer).get(5, TimeUnit.SECONDS));
+            } finally {
+                childSkipped.countDown();
+            }
+            assertTrue(first.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.SUCCEEDED, first.getJobStatus(producer));
+
+            broken.set(false);
+            flakyJob.setInputFingerprint("flaky-v2");
+            DagRun second = scheduler.submit(Arrays.asList(producer, flakyJob));
+            CompletableFuture<Integer> consumerResult = second.getJobFuture(consumer);
+            assertTrue(second.await(5, TimeUnit.SECONDS));
+
+            assertEquals(JobStatus.CACHED, second.getJobStatus(producer));
+            // The consumer reads the cached result, not the marker of the released slot
+            assertEquals(43, consumerResult.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testJobsWithoutFingerprintAlwaysRun() throws InterruptedException {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            scheduler.setResultCache(new ResultCache(100));
+            Job job = new Job("JobA", testLogger, deterministicRandom);
+            job.setSleepTimeMs(0);
+
+            scheduler.scheduleAllJobs(Arrays.asList(job));
+            DagRun second = scheduler.submit(Arrays.asList(job));
+
+            assertTrue(second.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.SUCCEEDED, second.getJobStatus(job));
+            assertEquals(0, scheduler.getResultCache().size());
+        }
+    }
+
+    @Test
+    void testRunResumesFromJournalWithoutRerunningFinishedJobs(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("run.journal");
+        Queue<String> started = new ConcurrentLinkedQueue<>();
+        Consumer<String> logger = message -> {
+            if (message.endsWith(" started")) {
+                started.add(message.substring(0, message.length() - " started".length()));
+            }
+        };
+        AtomicBoolean broken = new AtomicBoolean(true);
+        Job jobA = new Job("Job A", logger, deterministicRandom);
+        Job jobB = new Job("Job B", logger, deterministicRandom, jobA);
+        Job flakyJob = new Job("Flaky Job", logger, deterministicRandom, jobA) {
+            @Override
+            public void run() {
+                super.run();
+                if (broken.get()) {
+                    throw new IllegalStateException("crashed");
+                }
+            }
+        };
+        Job jobD = new Job("Job D", logger, deterministicRandom, jobB, flakyJob);
+        for (Job job : Arrays.asList(jobA, jobB, flakyJob, jobD)) {
+            job.setSleepTimeMs(10);
+        }
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            try (RunJournal journal = RunJournal.open(path)) {
+                RunSummary first = scheduler.scheduleAllJobs(Arrays.asList(jobA), journal);
+                assertEquals(JobStatus.FAILED, first.getStatus(flakyJob));
+                assertEquals(JobStatus.SKIPPED, first.getStatus(jobD));
+            }
+
+            broken.set(false);
+            started.clear();
+            try (RunJournal journal = RunJournal.open(path)) {
+                assertEquals(Set.of("Job A", "Job B"), journal.getCompletedJobs());
+                RunSummary resumed = scheduler.scheduleAllJobs(Arrays.asList(jobA), journal);
+
+                assertTrue(resumed.isSuccessful());
+                assertEquals(JobStatus.RESTORED, resumed.getStatus(jobA));
+                assertEquals(JobStatus.RESTORED, resumed.getStatus(jobB));
+                assertEquals(JobStatus.SUCCEEDED, resumed.getStatus(flakyJob));
+                assertEquals(JobStatus.SUCCEEDED, resumed.getStatus(jobD));
+                assertEquals(Arrays.asList("Flaky Job", "Job D"), new ArrayList<>(started));
+            }
+        }
+
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertEquals(Set.of("Job A", "Job B", "Flaky Job", "Job D"), journal.getCompletedJobs());
+        }
+    }
+
+    @Test
+    void testFullyJournaledRunFinishesWithoutRunningJobs(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("run.journal");
+        Job jobA = new Job("Job A", testLogger, deterministicRandom);
+        Job jobB = new Job("Job B", testLogger, deterministicRandom, jobA);
+        jobA.setSleepTimeMs(0);
+        jobB.setSleepTimeMs(0);
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            try (RunJournal journal = RunJournal.open(path)) {
+                assertTrue(scheduler.scheduleAllJobs(Arrays.asList(jobA), journal).isSuccessful());
+            }
+            try (RunJournal journal = RunJournal.open(path)) {
+                DagRun run = scheduler.submit(Arrays.asList(jobA), journal);
+
+                assertTrue(run.isDone());
+                assertEquals(2, run.getSummary().getCount(JobStatus.RESTORED));
+                assertNull(run.getJobFuture(jobB).get());
+            }
+        }
+    }
+
+    @Test
+    void testJournaledRunRejectsJobsWithTheSameName(@TempDir Path directory) throws Exception {
+        Job jobA = new Job("Job A", testLogger, deterministicRandom);
+        Job first = new Job("Job B", testLogger, deterministicRandom, jobA);
+        Job second = new Job("Job B", testLogger, deterministicRandom, jobA);
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            try (RunJournal journal = RunJournal.open(directory.resolve("run.journal"))) {
+                // On resume, a journal listing Job B would restore both jobs of that name
+                IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                        () -> scheduler.submit(Arrays.asList(jobA), journal));
+                assertTrue(exception.getMessage().contains("Job B"));
+            }
+        }
+    }
+
+    @Test
+    void testSameJobsRunRepeatedlyInDependencyOrder() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            Job jobA = new Job("JobA", testLogger, deterministicRandom);
+            Job jobB = new Job("JobB", testLogger, deterministicRandom, jobA);
+            Job jobC = new Job("JobC", testLogger, deterministicRandom, jobA);
+            Job jobD = new Job("JobD", testLogger, deterministicRandom, jobB, jobC);
+            jobA.setSleepTimeMs(50);
+            jobB.setSleepTimeMs(10);
+            jobC.setSleepTimeMs(10);
+            jobD.setSleepTimeMs(10);
+
+            for (int run = 0; run < 3; run++) {
+                executionOrder.clear();
+                assertTrue(scheduler.scheduleAllJobs(Arrays.asList(jobA)).isSuccessful());
+
+                List<String> messages = new ArrayList<>(executionOrder);
+                verifyJobExecutedBeforeJob(messages, "JobA", "JobB");
+                verifyJobExecutedBeforeJob(messages, "JobA", "JobC");
+                verifyJobExecutedBeforeJob(messages, "JobB", "JobD");
+                verifyJobExecutedBeforeJob(messages, "JobC", "JobD");
+            }
+        }
+    }
+
+    @Test
+    void testCompiledGraphRunsConcurrentlyWithIndependentState() throws Exception {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            CountDownLatch gate = new CountDownLatch(1);
+            ResultJob<Integer> source = new ResultJob<>("Source", testLogger, inputs -> {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return 1;
+            });
+            ResultJob<Integer> sink = new ResultJob<>("Sink", testLogger, inputs -> inputs.get(source) + 1, source);
+            JobGraph graph = JobGraph.compile(Arrays.asList(source));
+
+            DagRun first = scheduler.submit(graph);
+            DagRun second = scheduler.submit(graph);
+            CompletableFuture<Integer> firstSink = first.getJobFuture(sink);
+            CompletableFuture<Integer> secondSink = second.getJobFuture(sink);
+            // Both runs are in flight; cancelling one leaves the other's state untouched
+            first.cancel();
+            gate.countDown();
+
+            assertThrows(CancellationException.class, () -> firstSink.getNow(0));
+            assertEquals(2, secondSink.get(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.SUCCEEDED, second.getJobStatus(source));
+            assertSame(graph, second.getGraph());
+        }
+    }
+
+    @Test
+    void testResourcePoolLimitsConcurrentJobsByDemand() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            scheduler.setResourcePool(new ResourcePool(4, 8, Map.of("db-connection", 1)));
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            AtomicInteger runningDbJobs = new AtomicInteger();
+            AtomicInteger maxRunningDbJobs = new AtomicInteger();
+            List<Job> jobs = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                boolean usesDb = i % 2 == 0;
+                Job job = new Job("Job" + i, testLogger, deterministicRandom) {
+                    @Override
+                    public void run() {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        if (usesDb) {
+                            maxRunningDbJobs.accumulateAndGet(runningDbJobs.incrementAndGet(), Math::max);
+                        }
+                        super.run();
+                        if (usesDb) {
+                            runningDbJobs.decrementAndGet();
+                        }
+                        running.decrementAndGet();
+                    }
+                };
+                job.setSleepTimeMs(30);
+                // Memory, not CPU, is the binding limit: two jobs fit
+                job.setResourceDemand(usesDb ? new ResourceDemand(1, 4, Map.of("db-connection", 1))
+                        : new ResourceDemand(1, 4));
+                jobs.add(job);
+            }
+
+            assertTrue(scheduler.scheduleAllJobs(jobs).isSuccessful());
+
+            assertEquals(2, maxRunning.get());
+            assertEquals(1, maxRunningDbJobs.get());
+            assertEquals(0, scheduler.getResourcePool().getWaitingCount());
+            assertEquals(8, scheduler.getResourcePool().getAvailableMemoryUnits());
+        }
+    }
+
+    @Test
+    void testHeavyJobIsNotStarvedByLightJobs() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            ResourcePool pool = new ResourcePool(4, 0);
+            pool.setMaxBypasses(2);
+            scheduler.setResourcePool(pool);
+            List<Job> jobs = new ArrayList<>();
+            Job heavyJob = new Job("Heavy", testLogger, deterministicRandom);
+            heavyJob.setResourceDemand(new ResourceDemand(4, 0));
+            heavyJob.setSleepTimeMs(10);
+            for (int i = 1; i <= 12; i++) {
+                Job lightJob = new Job("Light" + i, testLogger, deterministicRandom);
+                lightJob.setResourceDemand(new ResourceDemand(1, 0));
+                lightJob.setSleepTimeMs(20);
+                jobs.add(lightJob);
+                if (i == 2) {
+                    jobs.add(heavyJob);
+                }
+            }
+
+            assertTrue(scheduler.scheduleAllJobs(jobs).isSuccessful());
+
+            // Light3 and Light4 may pass the heavy job, but later light jobs wait until it has started
+            List<String> messages = new ArrayList<>(executionOrder);
+            assertTrue(messages.indexOf("Light4 started") < messages.indexOf("Heavy started"));
+            assertTrue(messages.indexOf("Heavy started") < messages.indexOf("Light5 started"));
+        }
+    }
+
+    @Test
+    void testJobDemandingMoreThanPoolIsRejected() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            scheduler.setResourcePool(new ResourcePool(2, 2));
+            Job job = new Job("Greedy", testLogger, deterministicRandom);
+            job.setResourceDemand(new ResourceDemand(1, 1, Map.of("gpu", 1)));
+
+            assertThrows(IllegalArgumentException.class, () -> scheduler.submit(Arrays.asList(job)));
+        }
+    }
+
+    @Test
+    void testConcurrencyGroupLimitsJobsInFlightWithoutBlockingOtherWork() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            scheduler.addConcurrencyGroup(new ConcurrencyGroup("payments-api", 1));
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Job> jobs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Job job = new Job("ApiJob" + i, testLogger, deterministicRandom) {
+                    @Override
+                    public void run() {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        super.run();
+                        running.decrementAndGet();
+                    }
+                };
+                job.setSleepTimeMs(30);
+                job.setConcurrencyGroup("payments-api");
+                jobs.add(job);
+            }
+            Job otherJob = new Job("OtherJob", testLogger, deterministicRandom);
+            otherJob.setSleepTimeMs(10);
+            jobs.add(otherJob);
+
+            assertTrue(scheduler.scheduleAllJobs(jobs).isSuccessful());
+
+            assertEquals(1, maxRunning.get());
+            // Queued group jobs hold no worker, so the ungrouped job finishes while they wait
+            List<String> messages = new ArrayList<>(executionOrder);
+            assertTrue(messages.indexOf("OtherJob completed") < messages.indexOf("ApiJob1 started"));
+            assertEquals(0, scheduler.getConcurrencyGroup("payments-api").getInFlight());
+        }
+    }
+
+    @Test
+    void testConcurrencyGroupRateLimitSpacesJobStarts() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            ConcurrencyGroup group = new ConcurrencyGroup("search-api", 4);
+            group.setRateLimit(20, 1);
+            scheduler.addConcurrencyGroup(group);
+            List<Job> jobs = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                Job job = new Job("SearchJob" + i, testLogger, deterministicRandom);
+                job.setSleepTimeMs(0);
+                job.setConcurrencyGroup("search-api");
+                jobs.add(job);
+            }
+
+            long startTime = System.nanoTime();
+            assertTrue(scheduler.scheduleAllJobs(jobs).isSuccessful());
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            // One token up front, then one every 50ms
+            assertTrue(elapsedMs >= 190, "Rate limit not applied: " + elapsedMs + "ms");
+        }
+    }
+
+    @Test
+    void testJobInUnknownConcurrencyGroupIsRejected() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(1)) {
+            Job job = new Job("JobA", testLogger, deterministicRandom);
+            job.setConcurrencyGroup("missing");
+
+            assertThrows(IllegalArgumentException.class, () -> scheduler.submit(Arrays.asList(job)));
+            assertThrows(IllegalArgumentException.class, () -> new ConcurrencyGroup("api", 0));
+        }
+    }
+
+    @Test
+    void testLoadedGraphRunsInDependencyOrder() throws Exception {
+        String text = "JobA\nJobB\tJobA\nJobC\tJobA\nJobD\tJobB\tJobC\n";
+        JobGraph graph = JobGraphLoader.load(new StringReader(text), name -> {
+            Job job = new Job(name, testLogger, deterministicRandom);
+            job.setSleepTimeMs(10);
+            return job;
+        });
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            DagRun run = scheduler.submit(graph);
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            assertTrue(run.getSummary().isSuccessful());
+            List<String> messages = new ArrayList<>(executionOrder);
+            verifyJobExecutedBeforeJob(messages, "JobA", "JobB");
+            verifyJobExecutedBeforeJob(messages, "JobA", "JobC");
+            verifyJobExecutedBeforeJob(messages, "JobB", "JobD");
+            verifyJobExecutedBeforeJob(messages, "JobC", "JobD");
+        }
+    }
+
+    @Test
+    void testSnapshotGraphRunsInDependencyOrder(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("graph.snapshot");
+        String text = "JobA\nJobB\tJobA\nJobC\tJobA\nJobD\tJobB\tJobC\n";
+        JobGraphSnapshot.write(JobGraphLoader.load(new StringReader(text), name -> new Job(name)), path);
+        JobGraph graph = JobGraphSnapshot.load(path, name -> {
+            Job job = new Job(name, testLogger, deterministicRandom);
+            job.setSleepTimeMs(10);
+            return job;
+        });
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            DagRun run = scheduler.submit(graph);
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            assertTrue(run.getSummary().isSuccessful());
+            List<String> messages = new ArrayList<>(executionOrder);
+            verifyJobExecutedBeforeJob(messages, "JobA", "JobB");
+            verifyJobExecutedBeforeJob(messages, "JobA", "JobC");
+            verifyJobExecutedBeforeJob(messages, "JobB", "JobD");
+            verifyJobExecutedBeforeJob(messages, "JobC", "JobD");
+        }
+    }
+
+    @Test
+    void testSnapshotGraphCreatesJobsOnlyAsTheyBecomeReady(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("graph.snapshot");
+        String text = "Gate\nGrouped\tGate\nAfterGrouped\tGrouped\nOther\tGate\n";
+        JobGraphSnapshot.write(JobGraphLoader.load(new StringReader(text), name -> new Job(name)), path);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Job> created = new ConcurrentHashMap<>();
+        JobGraph graph = JobGraphSnapshot.load(path, name -> {
+            Job job = name.equals("Gate") ? new Job(name, testLogger, deterministicRandom) {
+                @Override
+                public void run() {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            } : new Job(name, testLogger, deterministicRandom);
+            job.setSleepTimeMs(0);
+            if (name.equals("Grouped")) {
+                job.setConcurrencyGroup("unregistered");
+            }
+            created.put(name, job);
+            return job;
+        });
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            DagRun run;
+            try {
+                run = scheduler.submit(graph);
+                assertEquals(Collections.singleton("Gate"), created.keySet());
+            } finally {
+                release.countDown();
+            }
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            // The unknown group is only found once the job is ready, and fails that job alone
+            Job grouped = created.get("Grouped");
+            assertEquals(JobStatus.FAILED, run.getJobStatus(grouped));
+            assertInstanceOf(IllegalArgumentException.class, run.getSummary().getFailure(grouped));
+            for (int id = 0; id < graph.size(); id++) {
+                if (graph.getJob(id).getName().equals("AfterGrouped")) {
+                    assertEquals(JobStatus.SKIPPED, run.getJobStatus(graph.getJob(id)));
+                }
+            }
+            assertEquals(JobStatus.SUCCEEDED, run.getJobStatus(created.get("Other")));
+        }
+    }
+
+    @Test
+    void testRunningJobFansOutIntoAddedJobs() throws Exception {
+        CompletableFuture<DagRun> runFuture = new CompletableFuture<>();
+        Job mapper = new Job("Mapper", testLogger, deterministicRandom) {
+            @Override
+            public void run() {
+                super.run();
+                // Discovers its follow-up work while running
+                DagRun run = runFuture.join();
+                List<Job> parts = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    Job part = new Job("Part" + i, testLogger, deterministicRandom, this);
+                    part.setSleepTimeMs(10);
+                    run.addJob(part);
+                    parts.add(part);
+                }
+                Job reducer = new Job("Reducer", testLogger, deterministicRandom, parts.toArray(new Job[0]));
+                reducer.setSleepTimeMs(10);
+                run.addJob(reducer);
+            }
+        };
+        mapper.setSleepTimeMs(10);
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            DagRun run = scheduler.submit(Arrays.asList(mapper));
+            runFuture.complete(run);
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            RunSummary summary = run.getSummary();
+            assertTrue(summary.isSuccessful());
+            assertEquals(5, summary.getCount(JobStatus.SUCCEEDED));
+            assertEquals(1, run.getGraph().size());
+            List<String> messages = new ArrayList<>(executionOrder);
+            for (int i = 0; i < 3; i++) {
+                verifyJobExecutedBeforeJob(messages, "Mapper", "Part" + i);
+                verifyJobExecutedBeforeJob(messages, "Part" + i, "Reducer");
+            }
+        }
+    }
+
+    @Test
+    void testJobsAddedAfterTheirParentFinished() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Job done = new Job("Done", testLogger, deterministicRandom);
+        done.setSleepTimeMs(0);
+        Job broken = new Job("Broken", testLogger, deterministicRandom) {
+            @Override
+            public void run() {
+                throw new IllegalStateException("boom");
+            }
+        };
+        // Keeps the run in progress while jobs are added to it
+        Job gate = new Job("Gate", testLogger, deterministicRandom) {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            DagRun run = scheduler.submit(Arrays.asList(done, broken, gate));
+            run.getJobFuture(done).get(5, TimeUnit.SECONDS);
+            assertThrows(ExecutionException.class, () -> run.getJobFuture(broken).get(5, TimeUnit.SECONDS));
+
+            Job afterDone = new Job("AfterDone", testLogger, deterministicRandom, done);
+            afterDone.setSleepTimeMs(0);
+            run.addJob(afterDone);
+            Job afterBroken = new Job("AfterBroken", testLogger, deterministicRandom, broken);
+            run.addJob(afterBroken);
+            run.getJobFuture(afterDone).get(5, TimeUnit.SECONDS);
+            assertEquals(JobStatus.SKIPPED, run.getJobStatus(afterBroken));
+
+            assertThrows(IllegalArgumentException.class, () -> run.addJob(afterDone));
+            // Gate is already running, so it can no longer wait for anything
+            assertThrows(IllegalStateException.class, () -> run.addDependency(done, gate));
+            assertThrows(IllegalArgumentException.class,
+                    () -> run.addJob(new Job("Orphan", testLogger, deterministicRandom, new Job("Stranger"))));
+            release.countDown();
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            assertEquals(JobStatus.SUCCEEDED, run.getSummary().getStatus(afterDone));
+            assertThrows(IllegalStateException.class,
+                    () -> run.addJob(new Job("TooLate", testLogger, deterministicRandom, done)));
+        }
+    }
+
+    @Test
+    void testAddedDependenciesAreOrderedAndCheckedForCycles() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Job root = new Job("Root", testLogger, deterministicRandom) {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.run();
+            }
+        };
+        Job child = new Job("Child", testLogger, deterministicRandom, root);
+        Arrays.asList(root, child).forEach(job -> job.setSleepTimeMs(10));
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            DagRun run = scheduler.submit(Arrays.asList(root));
+            // Added last, so it has the highest ID; making Child wait for it reorders the run
+            Job setup = new Job("Setup", testLogger, deterministicRandom, root);
+            setup.setSleepTimeMs(10);
+            run.addJob(setup);
+            run.addDependency(setup, child);
+
+            IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class,
+                    () -> run.addDependency(child, setup));
+            assertTrue(cycle.getMessage().contains("Child -> Setup"));
+            assertThrows(IllegalArgumentException.class, () -> run.addDependency(child, child));
+            assertThrows(IllegalArgumentException.class, () -> run.addDependency(setup, root));
+            release.countDown();
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            assertTrue(run.getSummary().isSuccessful());
+            List<String> messages = new ArrayList<>(executionOrder);
+            verifyJobExecutedBeforeJob(messages, "Root", "Setup");
+            verifyJobExecutedBeforeJob(messages, "Setup", "Child");
+        }
+    }
+
+    @Test
+    void testHighFanInJobWaitsForEveryParent() throws Exception {
+        // Enough parents that many of them finish at the same time on different workers
+        List<Job> parents = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Job parent = new Job("Parent" + i, testLogger, deterministicRandom);
+            parent.setSleepTimeMs(i % 7 == 0 ? 5 : 0);
+            parents.add(parent);
+        }
+        Job join = new Job("Join", testLogger, deterministicRandom, parents.toArray(new Job[0]));
+        join.setSleepTimeMs(0);
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(8)) {
+            for (int round = 0; round < 3; round++) {
+                executionOrder.clear();
+                DagRun run = scheduler.submit(parents);
+
+                assertTrue(run.await(5, TimeUnit.SECONDS));
+                assertEquals(301, run.getSummary().getCount(JobStatus.SUCCEEDED));
+                List<String> messages = new ArrayList<>(executionOrder);
+                assertEquals("Join completed", messages.get(messages.size() - 1));
+                assertEquals(1, messages.stream().filter("Join started"::equals).count());
+                for (int i = 0; i < parents.size(); i += 37) {
+                    verifyJobExecutedBeforeJob(messages, "Parent" + i, "Join");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBatchedDispatchRunsChainInlineOnOneWorker() throws InterruptedException {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Job> chain = new ArrayList<>();
+        Job previous = null;
+        for (int i = 0; i < 1000; i++) {
+            Job job = new Job("Link" + i, testLogger, deterministicRandom,
+                    previous == null ? new Job[0] : new Job[]{previous}) {
+                @Override
+                public void run() {
+                    threads.add(Thread.currentThread());
+                    super.run();
+                }
+            };
+            job.setSleepTimeMs(0);
+            chain.add(job);
+            previous = job;
+        }
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            scheduler.setDispatchBatchSize(16);
+            DagRun run = scheduler.submit(Collections.singletonList(chain.get(0)));
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            assertEquals(1000, run.getSummary().getCount(JobStatus.SUCCEEDED));
+            // Each link is run next by the worker that finished its parent, never queued
+            assertEquals(1, threads.size());
+            List<String> messages = new ArrayList<>(executionOrder);
+            for (int i = 1; i < chain.size(); i += 111) {
+                verifyJobExecutedBeforeJob(messages, "Link" + (i - 1), "Link" + i);
+            }
+        }
+    }
+
+    @Test
+    void testBatchedDispatchRunsFanOutWithFailuresAndGroups() throws InterruptedException {
+        Job root = new Job("Root", testLogger, deterministicRandom);
+        root.setSleepTimeMs(0);
+        List<Job> leaves = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Job leaf = new Job("Leaf" + i, testLogger, deterministicRandom, root);
+            leaf.setSleepTimeMs(0);
+            leaves.add(leaf);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Job grouped = new Job("Grouped" + i, testLogger, deterministicRandom, root) {
+                @Override
+                public void run() {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    super.run();
+                    running.decrementAndGet();
+                }
+            };
+            grouped.setSleepTimeMs(5);
+            grouped.setConcurrencyGroup("single");
+            leaves.add(grouped);
+        }
+        Job join = new Job("Join", testLogger, deterministicRandom, leaves.toArray(new Job[0]));
+        join.setSleepTimeMs(0);
+        ResultJob<Void> failingJob = new ResultJob<>("FailingJob", testLogger, inputs -> {
+            throw new IllegalStateException("boom");
+        }, root);
+        Job skippedJob = new Job("SkippedJob", testLogger, deterministicRandom, failingJob);
+
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(4)) {
+            scheduler.addConcurrencyGroup(new ConcurrencyGroup("single", 1));
+            scheduler.setDispatchBatchSize(64);
+            DagRun run = scheduler.submit(Collections.singletonList(root));
+
+            assertTrue(run.await(5, TimeUnit.SECONDS));
+            RunSummary summary = run.getSummary();
+            assertEquals(505, summary.getCount(JobStatus.SUCCEEDED));
+            assertEquals(JobStatus.FAILED, summary.getStatus(failingJob));
+            assertEquals(JobStatus.SKIPPED, summary.getStatus(skippedJob));
+            // Grouped jobs are still admitted one by one
+            assertEquals(1, maxRunning.get());
+            List<String> messages = new ArrayList<>(executionOrder);
+            assertEquals(1, messages.stream().filter("Join started"::equals).count());
+            for (int i = 0; i < leaves.size(); i += 47) {
+                verifyJobExecutedBeforeJob(messages, leaves.get(i).getName(), "Join");
+            }
+        }
+    }
+
+    @Test
+    void testBatchedFanOutOnVirtualThreadsStillRunsInParallel() throws InterruptedException {
+        int width = 16;
+        // Every job waits until all of them have started, which only happens if none waits behind another
+        CountDownLatch allStarted = new CountDownLatch(width);
+        AtomicInteger overlapping = new AtomicInteger();
+        Job root = new Job("Root", testLogger, deterministicRandom);
+        root.setSleepTimeMs(0);
+        List<Job> leaves = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            Job leaf = new Job("Leaf" + i, testLogger, deterministicRandom, root) {
+                @Override
+                public void run() {
+                    allStarted.countDown();
+                    try {
+                        if (allStarted.await(5, TimeUnit.SECONDS)) {
+                            overlapping.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            leaves.add(leaf);
+        }
+
+        try (ParallelJobScheduler scheduler = ParallelJobScheduler.withVirtualThreads()) {
+            scheduler.setDispatchBatchSize(64);
+            DagRun run = scheduler.submit(Collections.singletonList(root));
+
+            assertTrue(run.await(10, TimeUnit.SECONDS));
+            assertEquals(width + 1, run.getSummary().getCount(JobStatus.SUCCEEDED));
+            assertEquals(width, overlapping.get());
+        }
+    }
+
+    @Test
+    void testDispatchBatchSizeIsValidated() {
+        try (ParallelJobScheduler scheduler = new ParallelJobScheduler(2)) {
+            assertEquals(0, scheduler.getDispatchBatchSize());
+            assertThrows(IllegalArgumentException.class, () -> scheduler.setDispatchBatchSize(-1));
+        }
+        try (ParallelJobScheduler scheduler = ParallelJobScheduler.withCriticalPathPriority(2)) {
+            assertThrows(IllegalStateException.class, () -> scheduler.setDispatchBatchSize(8));
+            scheduler.setDispatchBatchSize(0);
+        }
+    }
+
     private void verifyJobExecutedBeforeJob(List<String> messages, String jobA, String jobB) {
         int jobACompletedIndex = -1;
         int jobBStartedIndex = -1;
@@ -0,0 +1,48 @@
+package scheduler;
+
+import models.Job;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Random;
+
+class ResultCacheTest {
+
+    @Test
+    void testEntriesAreKeyedByJobNameAndFingerprint() {
+        ResultCache cache = new ResultCache(10);
+        Job job = new Job("JobA", message -> { }, new Random(42));
+        Job sameName = new Job("JobA", message -> { }, new Random(42));
+
+        cache.put(job, "v1", "result");
+        cache.put(job, "v2", null);
+
+        assertEquals("result", cache.get(sameName, "v1"));
+        assertNull(cache.get(job, "v2"));
+        assertSame(ResultCache.MISS, cache.get(job, "v3"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        ResultCache cache = new ResultCache(2);
+        Job jobA = new Job("JobA", message -> { }, new Random(42));
+        Job jobB = new Job("JobB", message -> { }, new Random(42));
+        Job jobC = new Job("JobC", message -> { }, new Random(42));
+
+        cache.put(jobA, "v1", "a");
+        cache.put(jobB, "v1", "b");
+        cache.get(jobA, "v1");
+        cache.put(jobC, "v1", "c");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(jobA, "v1"));
+        assertFalse(cache.contains(jobB, "v1"));
+        assertTrue(cache.contains(jobC, "v1"));
+    }
+
+    @Test
+    void testInvalidSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(0));
+    }
+}
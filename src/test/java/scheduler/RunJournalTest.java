@@ -0,0 +1,76 @@
+package scheduler;
+
+import models.Job;
+import models.ResultJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.Set;
+
+class RunJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordedJobsAreReplayedOnOpen() throws Exception {
+        Path path = directory.resolve("run.journal");
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertTrue(journal.getCompletedJobs().isEmpty());
+            journal.record(new Job("Job A", message -> { }, new Random(42)));
+            journal.record(new Job("Jöb B", message -> { }, new Random(42)));
+            journal.flush();
+        }
+
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertEquals(Set.of("Job A", "Jöb B"), journal.getCompletedJobs());
+            journal.record(new Job("Job C", message -> { }, new Random(42)));
+        }
+
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertEquals(Set.of("Job A", "Jöb B", "Job C"), journal.getCompletedJobs());
+        }
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        Path path = directory.resolve("run.journal");
+        try (RunJournal journal = RunJournal.open(path)) {
+            journal.record(new Job("Job A", message -> { }, new Random(42)));
+            journal.record(new Job("Job B", message -> { }, new Random(42)));
+        }
+        long completeLength = Files.size(path);
+        // Simulate a crash in the middle of writing the last record
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(completeLength - 3);
+        }
+
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertEquals(Set.of("Job A"), journal.getCompletedJobs());
+            journal.record(new Job("Job C", message -> { }, new Random(42)));
+        }
+
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertEquals(Set.of("Job A", "Job C"), journal.getCompletedJobs());
+        }
+    }
+
+    @Test
+    void testResultJobsAreNotRecorded() throws IOException {
+        Path path = directory.resolve("run.journal");
+        ResultJob<Integer> resultJob = new ResultJob<>("Result", message -> { }, inputs -> 1);
+        try (RunJournal journal = RunJournal.open(path)) {
+            journal.record(resultJob);
+        }
+
+        try (RunJournal journal = RunJournal.open(path)) {
+            assertTrue(journal.getCompletedJobs().isEmpty());
+            assertFalse(journal.isCompleted(resultJob));
+        }
+    }
+}